@@ -0,0 +1,76 @@
+package vn.siplab.medical.education.common.cache;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+// Active flag of the ids of one entity type in two Roaring bitmaps; the inactive one is usually
+// near empty. An id in neither is unknown (inserted by another instance, or deleted) and has to
+// be read from the database.
+public class ActiveIdIndex {
+
+  private final Roaring64NavigableMap active = new Roaring64NavigableMap();
+
+  private final Roaring64NavigableMap inactive = new Roaring64NavigableMap();
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  public void load(Stream<Long> ids, boolean activeIds) {
+    Roaring64NavigableMap bitmap = activeIds ? active : inactive;
+
+    lock.writeLock().lock();
+    try {
+      ids.forEach(bitmap::addLong);
+      // Sequential ids collapse into run containers
+      bitmap.runOptimize();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public Boolean get(long id) {
+    lock.readLock().lock();
+    try {
+      if (active.contains(id)) {
+        return true;
+      }
+
+      return inactive.contains(id) ? false : null;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  // A null flag forgets the id
+  public void put(long id, Boolean value) {
+    lock.writeLock().lock();
+    try {
+      if (Boolean.TRUE.equals(value)) {
+        inactive.removeLong(id);
+        active.addLong(id);
+      } else if (Boolean.FALSE.equals(value)) {
+        active.removeLong(id);
+        inactive.addLong(id);
+      } else {
+        active.removeLong(id);
+        inactive.removeLong(id);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void remove(long id) {
+    put(id, null);
+  }
+
+  public long getSizeInBytes() {
+    lock.readLock().lock();
+    try {
+      return active.getLongSizeInBytes() + inactive.getLongSizeInBytes();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+}
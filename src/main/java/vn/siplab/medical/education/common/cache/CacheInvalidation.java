@@ -0,0 +1,34 @@
+package vn.siplab.medical.education.common.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Published when a node changes a region; a null key clears the whole region. Sent as the plain
+// string origin|cacheName|key, with the key in the string form Redis stores it under, so a
+// message never goes through Java deserialization.
+@Getter
+@AllArgsConstructor
+public class CacheInvalidation {
+
+  private static final String SEPARATOR = "|";
+
+  private final String origin;
+
+  private final String cacheName;
+
+  private final String key;
+
+  public String toMessage() {
+    return key == null ? origin + SEPARATOR + cacheName : origin + SEPARATOR + cacheName + SEPARATOR + key;
+  }
+
+  // The key comes last, so it may hold the separator itself; null for anything malformed
+  public static CacheInvalidation fromMessage(String message) {
+    String[] parts = message == null ? new String[0] : message.split("\\" + SEPARATOR, 3);
+    if (parts.length < 2) {
+      return null;
+    }
+
+    return new CacheInvalidation(parts[0], parts[1], parts.length == 3 ? parts[2] : null);
+  }
+}
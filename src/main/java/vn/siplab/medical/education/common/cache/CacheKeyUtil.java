@@ -0,0 +1,88 @@
+package vn.siplab.medical.education.common.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.beans.PropertyDescriptor;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.BeanUtils;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.data.domain.Pageable;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.ReflectionUtils;
+import vn.siplab.medical.education.common.dto.DTO;
+import vn.siplab.medical.education.common.until.ObjectMapperUtil;
+
+public final class CacheKeyUtil {
+
+  private static final ObjectMapper CANONICAL_MAPPER = ObjectMapperUtil.getMapper()
+      .configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true)
+      .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+  private static final Map<Class<?>, List<PropertyDescriptor>> PROPERTIES = new ConcurrentHashMap<>();
+
+  // Stable hash of the search arguments: the non-null properties of a DTO (language replaced
+  // by the request language), the page and sort of a Pageable, any other argument as JSON
+  public static String fingerprint(Object... params) {
+    List<Object> values = new ArrayList<>(params.length + 1);
+    values.add(LocaleContextHolder.getLocale().getLanguage());
+
+    for (Object param : params) {
+      if (param instanceof DTO) {
+        values.add(getProperties((DTO) param));
+      } else if (param instanceof Pageable) {
+        values.add(getPage((Pageable) param));
+      } else {
+        values.add(param);
+      }
+    }
+
+    try {
+      return DigestUtils.md5DigestAsHex(CANONICAL_MAPPER.writeValueAsString(values)
+          .getBytes(StandardCharsets.UTF_8));
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Cannot fingerprint search arguments", e);
+    }
+  }
+
+  private static Map<String, Object> getProperties(DTO dto) {
+    Map<String, Object> properties = new TreeMap<>();
+    properties.put("@type", dto.getClass().getName());
+
+    for (PropertyDescriptor descriptor : PROPERTIES.computeIfAbsent(dto.getClass(), CacheKeyUtil::findProperties)) {
+      Object value = ReflectionUtils.invokeMethod(descriptor.getReadMethod(), dto);
+      if (value != null) {
+        properties.put(descriptor.getName(), value);
+      }
+    }
+
+    return properties;
+  }
+
+  private static List<PropertyDescriptor> findProperties(Class<?> type) {
+    List<PropertyDescriptor> properties = new ArrayList<>();
+
+    for (PropertyDescriptor descriptor : BeanUtils.getPropertyDescriptors(type)) {
+      if (descriptor.getReadMethod() != null && !"class".equals(descriptor.getName())
+          && !"language".equals(descriptor.getName())) {
+        properties.add(descriptor);
+      }
+    }
+
+    return properties;
+  }
+
+  private static Object getPage(Pageable pageable) {
+    if (pageable.isUnpaged()) {
+      return "unpaged:" + pageable.getSort();
+    }
+
+    return pageable.getPageNumber() + ":" + pageable.getPageSize() + ":" + pageable.getSort();
+  }
+}
@@ -0,0 +1,44 @@
+package vn.siplab.medical.education.common.cache;
+
+import java.lang.reflect.Method;
+
+// Cache regions of one entity type; the id regions are keyed by the entity id
+public enum CacheRegion {
+
+  DTO("dto"),
+
+  SUMMARY("summary"),
+
+  EXISTS("exists"),
+
+  ACTIVE("active"),
+
+  LIST("list");
+
+  private final String suffix;
+
+  CacheRegion(String suffix) {
+    this.suffix = suffix;
+  }
+
+  public String getName(Class<?> entityClass) {
+    return entityClass.getSimpleName() + "." + suffix;
+  }
+
+  public boolean isIdKeyed() {
+    return this != LIST;
+  }
+
+  public static CacheRegion of(Method method, Object[] params) {
+    switch (method.getName()) {
+      case "findById":
+        return params.length > 1 && Boolean.FALSE.equals(params[1]) ? SUMMARY : DTO;
+      case "existsById":
+        return EXISTS;
+      case "getActiveById":
+        return ACTIVE;
+      default:
+        return LIST;
+    }
+  }
+}
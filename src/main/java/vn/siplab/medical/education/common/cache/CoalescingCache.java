@@ -0,0 +1,215 @@
+package vn.siplab.medical.education.common.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.context.i18n.LocaleContext;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.data.util.CastUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Single-flight loading for @Cacheable(sync = true): concurrent misses of a key wait for one
+// load and share its result. With a refresh-after duration, the first caller hitting an entry
+// loaded longer ago starts its reload on the refresh executor; every caller, that one included,
+// gets the cached value until the reload replaces it. The reload runs as the caller, with its
+// locale and security context, in a read-only transaction of its own.
+public class CoalescingCache implements Cache {
+
+  private static final Logger logger = LoggerFactory.getLogger(CoalescingCache.class);
+
+  private static final long MAXIMUM_LOAD_TIMES = 100000;
+
+  private final Cache cache;
+
+  private final Duration refreshAfter;
+
+  private final Executor refreshExecutor;
+
+  private final TransactionTemplate refreshTransaction;
+
+  private final ConcurrentMap<Object, CompletableFuture<Object>> loads = new ConcurrentHashMap<>();
+
+  private final com.github.benmanes.caffeine.cache.Cache<Object, Long> loadTimes;
+
+  private final Counter coalesced;
+
+  private final Counter refreshed;
+
+  private final Counter refreshFailed;
+
+  // A null refresh transaction runs the reload without one
+  public CoalescingCache(Cache cache, Duration refreshAfter, Executor refreshExecutor,
+      TransactionTemplate refreshTransaction) {
+    this.cache = cache;
+    this.refreshAfter = refreshAfter == null || refreshAfter.isNegative() || refreshAfter.isZero()
+        || refreshExecutor == null ? null : refreshAfter;
+    this.refreshExecutor = refreshExecutor;
+    this.refreshTransaction = refreshTransaction;
+    this.loadTimes = this.refreshAfter == null ? null : Caffeine.newBuilder().maximumSize(MAXIMUM_LOAD_TIMES).build();
+    this.coalesced = Metrics.counter("common.cache.coalesced", "cache", cache.getName());
+    this.refreshed = Metrics.counter("common.cache.refreshed", "cache", cache.getName());
+    this.refreshFailed = Metrics.counter("common.cache.refresh.failed", "cache", cache.getName());
+  }
+
+  @Override
+  public String getName() {
+    return cache.getName();
+  }
+
+  @Override
+  public Object getNativeCache() {
+    return cache.getNativeCache();
+  }
+
+  @Override
+  public ValueWrapper get(Object key) {
+    return cache.get(key);
+  }
+
+  @Override
+  public <T> T get(Object key, Class<T> type) {
+    return cache.get(key, type);
+  }
+
+  @Override
+  public <T> T get(Object key, Callable<T> valueLoader) {
+    ValueWrapper value = cache.get(key);
+    if (value == null) {
+      return load(key, valueLoader);
+    }
+
+    if (isRefreshDue(key)) {
+      refresh(key, valueLoader, value.get());
+    }
+
+    return CastUtils.cast(value.get());
+  }
+
+  private boolean isRefreshDue(Object key) {
+    if (refreshAfter == null) {
+      return false;
+    }
+
+    Long loadTime = loadTimes.getIfPresent(key);
+    return loadTime != null && System.nanoTime() - loadTime > refreshAfter.toNanos();
+  }
+
+  // Only the caller that claims the key starts a reload; a failed or rejected refresh keeps the
+  // cached value until the entry expires. Failures are counted and logged.
+  private void refresh(Object key, Callable<?> valueLoader, Object current) {
+    CompletableFuture<Object> future = new CompletableFuture<>();
+    if (loads.putIfAbsent(key, future) != null) {
+      return;
+    }
+
+    LocaleContext localeContext = LocaleContextHolder.getLocaleContext();
+    SecurityContext securityContext = SecurityContextHolder.getContext();
+
+    try {
+      refreshExecutor.execute(() -> {
+        LocaleContext previousLocaleContext = LocaleContextHolder.getLocaleContext();
+        SecurityContext previousSecurityContext = SecurityContextHolder.getContext();
+        LocaleContextHolder.setLocaleContext(localeContext);
+        SecurityContextHolder.setContext(securityContext);
+
+        try {
+          Object result = refreshTransaction == null ? valueLoader.call()
+              : refreshTransaction.execute(status -> call(valueLoader));
+          put(key, result);
+          future.complete(result);
+          refreshed.increment();
+        } catch (Exception e) {
+          future.completeExceptionally(e);
+          refreshFailed.increment();
+          logger.warn("Cannot refresh {} in {}", key, cache.getName(), e);
+        } finally {
+          loads.remove(key, future);
+          LocaleContextHolder.setLocaleContext(previousLocaleContext);
+          SecurityContextHolder.setContext(previousSecurityContext);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      loads.remove(key, future);
+      future.complete(current);
+    }
+  }
+
+  private static Object call(Callable<?> valueLoader) {
+    try {
+      return valueLoader.call();
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private <T> T load(Object key, Callable<T> valueLoader) {
+    CompletableFuture<Object> future = new CompletableFuture<>();
+    CompletableFuture<Object> inFlight = loads.putIfAbsent(key, future);
+
+    if (inFlight != null) {
+      coalesced.increment();
+      return join(key, valueLoader, inFlight);
+    }
+
+    try {
+      // Another load may have finished between the miss and claiming the key
+      ValueWrapper value = cache.get(key);
+      Object result = value != null ? value.get() : valueLoader.call();
+
+      if (value == null) {
+        put(key, result);
+      }
+
+      future.complete(result);
+      return CastUtils.cast(result);
+    } catch (Exception e) {
+      future.completeExceptionally(e);
+      throw new ValueRetrievalException(key, valueLoader, e);
+    } finally {
+      loads.remove(key, future);
+    }
+  }
+
+  // Followers fail the same way as the caller that ran the load
+  private static <T> T join(Object key, Callable<T> valueLoader, CompletableFuture<Object> future) {
+    try {
+      return CastUtils.cast(future.join());
+    } catch (CompletionException e) {
+      throw new ValueRetrievalException(key, valueLoader, e.getCause());
+    }
+  }
+
+  @Override
+  public void put(Object key, Object value) {
+    cache.put(key, value);
+
+    if (loadTimes != null) {
+      loadTimes.put(key, System.nanoTime());
+    }
+  }
+
+  @Override
+  public void evict(Object key) {
+    cache.evict(key);
+  }
+
+  @Override
+  public void clear() {
+    cache.clear();
+  }
+}
@@ -0,0 +1,266 @@
+package vn.siplab.medical.education.common.cache;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.domain.Sort.NullHandling;
+import org.springframework.data.domain.Sort.Order;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.util.ClassUtils;
+import vn.siplab.medical.education.common.dto.BaseDTO;
+import vn.siplab.medical.education.common.until.ObjectMapperUtil;
+
+// Writes a BaseDTO, a list of one BaseDTO type, or a PageImpl of such a list (with its pageable and
+// total) as Smile behind the class name instead of a JDK stream; other values (booleans, empty
+// pages) stay JDK serialized. Payloads above the threshold are LZ4 compressed. Values starting
+// with the JDK stream magic are read as plain JDK, so entries written before the codec was
+// switched on still load.
+public class DTOCacheSerializer implements RedisSerializer<Object> {
+
+  private static final byte JDK = 1;
+
+  private static final byte SMILE = 2;
+
+  private static final byte SMILE_LIST = 3;
+
+  private static final byte SMILE_PAGE = 4;
+
+  private static final byte LZ4 = 0x10;
+
+  private static final byte JDK_STREAM_MAGIC = (byte) 0xAC;
+
+  static final ObjectMapper SMILE_MAPPER = ObjectMapperUtil.getMapper(new SmileFactory())
+      // The cache copy must keep every field, whatever the API view hides or makes read-only
+      .configure(MapperFeature.USE_ANNOTATIONS, false)
+      .setVisibility(PropertyAccessor.ALL, Visibility.NONE)
+      .setVisibility(PropertyAccessor.FIELD, Visibility.ANY);
+
+  private final ClassLoader classLoader;
+
+  private final JdkSerializationRedisSerializer jdkSerializer;
+
+  private final int compressionThreshold;
+
+  private final LZ4Compressor compressor;
+
+  private final LZ4FastDecompressor decompressor;
+
+  // A negative threshold disables compression
+  public DTOCacheSerializer(ClassLoader classLoader, int compressionThreshold) {
+    this.classLoader = classLoader;
+    this.jdkSerializer = new JdkSerializationRedisSerializer(classLoader);
+    this.compressionThreshold = compressionThreshold;
+
+    LZ4Factory factory = LZ4Factory.fastestInstance();
+    this.compressor = factory.fastCompressor();
+    this.decompressor = factory.fastDecompressor();
+  }
+
+  @Override
+  public byte[] serialize(Object value) throws SerializationException {
+    if (value == null) {
+      return new byte[0];
+    }
+
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream body = new DataOutputStream(bytes);
+      byte format = writeBody(value, body);
+
+      return compress(format, bytes.toByteArray());
+    } catch (IOException e) {
+      throw new SerializationException("Cannot serialize cache value " + value.getClass().getName(), e);
+    }
+  }
+
+  private byte writeBody(Object value, DataOutputStream body) throws IOException {
+    if (value instanceof BaseDTO) {
+      body.writeUTF(value.getClass().getName());
+      SMILE_MAPPER.writeValue((OutputStream) body, value);
+      return SMILE;
+    }
+
+    Class<?> elementType = getElementType(value);
+    if (elementType != null) {
+      body.writeUTF(elementType.getName());
+      SMILE_MAPPER.writeValue((OutputStream) body, value);
+      return SMILE_LIST;
+    }
+
+    elementType = value.getClass() == PageImpl.class ? getElementType(((Page<?>) value).getContent()) : null;
+    if (elementType != null) {
+      Page<?> page = (Page<?>) value;
+      body.writeUTF(elementType.getName());
+      body.writeLong(page.getTotalElements());
+      writePageable(page.getPageable(), body);
+      SMILE_MAPPER.writeValue((OutputStream) body, page.getContent());
+      return SMILE_PAGE;
+    }
+
+    body.write(jdkSerializer.serialize(value));
+    return JDK;
+  }
+
+  // Page number and size (-1 when unpaged), then each sort order
+  private static void writePageable(Pageable pageable, DataOutputStream body) throws IOException {
+    if (pageable.isUnpaged()) {
+      body.writeInt(-1);
+      body.writeInt(-1);
+      return;
+    }
+
+    body.writeInt(pageable.getPageNumber());
+    body.writeInt(pageable.getPageSize());
+
+    List<Order> orders = pageable.getSort().toList();
+    body.writeInt(orders.size());
+    for (Order order : orders) {
+      body.writeUTF(order.getProperty());
+      body.writeByte(order.getDirection().ordinal());
+      body.writeBoolean(order.isIgnoreCase());
+      body.writeByte(order.getNullHandling().ordinal());
+    }
+  }
+
+  private static Pageable readPageable(DataInputStream input) throws IOException {
+    int page = input.readInt();
+    int size = input.readInt();
+    if (size < 0) {
+      return Pageable.unpaged();
+    }
+
+    int count = input.readInt();
+    List<Order> orders = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      String property = input.readUTF();
+      Direction direction = Direction.values()[input.readByte()];
+      boolean ignoreCase = input.readBoolean();
+      Order order = new Order(direction, property, NullHandling.values()[input.readByte()]);
+      orders.add(ignoreCase ? order.ignoreCase() : order);
+    }
+
+    return PageRequest.of(page, size, Sort.by(orders));
+  }
+
+  // Only lists whose elements are all of the same BaseDTO class; the element class is written once
+  private static Class<?> getElementType(Object value) {
+    if (!(value instanceof List) || ((List<?>) value).isEmpty()) {
+      return null;
+    }
+
+    Class<?> elementType = null;
+    for (Object element : (List<?>) value) {
+      if (!(element instanceof BaseDTO) || (elementType != null && element.getClass() != elementType)) {
+        return null;
+      }
+
+      elementType = element.getClass();
+    }
+
+    return elementType;
+  }
+
+  private byte[] compress(byte format, byte[] body) {
+    if (compressionThreshold < 0 || body.length <= compressionThreshold) {
+      byte[] payload = new byte[body.length + 1];
+      payload[0] = format;
+      System.arraycopy(body, 0, payload, 1, body.length);
+      return payload;
+    }
+
+    byte[] compressed = new byte[compressor.maxCompressedLength(body.length) + 5];
+    compressed[0] = (byte) (format | LZ4);
+    compressed[1] = (byte) (body.length >>> 24);
+    compressed[2] = (byte) (body.length >>> 16);
+    compressed[3] = (byte) (body.length >>> 8);
+    compressed[4] = (byte) body.length;
+
+    int length = compressor.compress(body, 0, body.length, compressed, 5);
+    byte[] payload = new byte[length + 5];
+    System.arraycopy(compressed, 0, payload, 0, payload.length);
+    return payload;
+  }
+
+  @Override
+  public Object deserialize(byte[] bytes) throws SerializationException {
+    if (bytes == null || bytes.length == 0) {
+      return null;
+    }
+
+    if (bytes[0] == JDK_STREAM_MAGIC) {
+      return jdkSerializer.deserialize(bytes);
+    }
+
+    byte format = (byte) (bytes[0] & ~LZ4);
+    byte[] body;
+    int offset;
+
+    if ((bytes[0] & LZ4) != 0) {
+      int length = (bytes[1] & 0xFF) << 24 | (bytes[2] & 0xFF) << 16 | (bytes[3] & 0xFF) << 8 | bytes[4] & 0xFF;
+      body = decompressor.decompress(bytes, 5, length);
+      offset = 0;
+    } else {
+      body = bytes;
+      offset = 1;
+    }
+
+    try {
+      return readBody(format, body, offset);
+    } catch (IOException | ClassNotFoundException e) {
+      throw new SerializationException("Cannot deserialize cache value", e);
+    }
+  }
+
+  private Object readBody(byte format, byte[] body, int offset) throws IOException, ClassNotFoundException {
+    if (format == JDK) {
+      byte[] stream = new byte[body.length - offset];
+      System.arraycopy(body, offset, stream, 0, stream.length);
+      return jdkSerializer.deserialize(stream);
+    }
+
+    DataInputStream input = new DataInputStream(new ByteArrayInputStream(body, offset, body.length - offset));
+    Class<?> type = ClassUtils.forName(input.readUTF(), classLoader);
+
+    if (format == SMILE) {
+      return SMILE_MAPPER.readValue((InputStream) input, type);
+    }
+
+    JavaType listType = SMILE_MAPPER.getTypeFactory().constructCollectionType(ArrayList.class, type);
+
+    if (format == SMILE_LIST) {
+      return SMILE_MAPPER.readValue((InputStream) input, listType);
+    }
+
+    if (format == SMILE_PAGE) {
+      long total = input.readLong();
+      Pageable pageable = readPageable(input);
+      List<?> content = SMILE_MAPPER.readValue((InputStream) input, listType);
+      return new PageImpl<>(content, pageable, total);
+    }
+
+    throw new SerializationException("Unknown cache value format " + format);
+  }
+}
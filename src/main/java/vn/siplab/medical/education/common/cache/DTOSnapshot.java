@@ -0,0 +1,154 @@
+package vn.siplab.medical.education.common.cache;
+
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import vn.siplab.medical.education.common.dto.BaseDTO;
+
+// Immutable copy of a list of DTOs held off-heap: each DTO is Smile encoded (as in
+// DTOCacheSerializer) into direct buffer segments, behind an id-sorted index. Reads decode only
+// the DTOs asked for, as new instances, so the heap holds what callers keep. Direct memory is
+// bounded by -XX:MaxDirectMemorySize (the heap size by default) and freed when the snapshot is
+// collected.
+public final class DTOSnapshot<DTO extends BaseDTO> {
+
+  private static final int SEGMENT_SIZE = 1 << 26;
+
+  private final Class<DTO> type;
+
+  private final ByteBuffer[] segments;
+
+  private final long[] ids;
+
+  private final int[] segmentIndexes;
+
+  private final int[] offsets;
+
+  private final int[] lengths;
+
+  private final long sizeInBytes;
+
+  private DTOSnapshot(Class<DTO> type, ByteBuffer[] segments, long[] ids, int[] segmentIndexes, int[] offsets,
+      int[] lengths) {
+    this.type = type;
+    this.segments = segments;
+    this.ids = ids;
+    this.segmentIndexes = segmentIndexes;
+    this.offsets = offsets;
+    this.lengths = lengths;
+    this.sizeInBytes = Arrays.stream(segments).mapToLong(ByteBuffer::capacity).sum();
+  }
+
+  // DTOs without an id are left out
+  public static <DTO extends BaseDTO> DTOSnapshot<DTO> of(Class<DTO> type, Collection<DTO> dtos) {
+    List<DTO> sorted = dtos.stream().filter(dto -> dto.getId() != null)
+        .sorted(Comparator.comparing(BaseDTO::getId)).collect(Collectors.toList());
+
+    int size = sorted.size();
+    long[] ids = new long[size];
+    int[] segmentIndexes = new int[size];
+    int[] offsets = new int[size];
+    int[] lengths = new int[size];
+
+    List<ByteBuffer> segments = new ArrayList<>();
+    ByteArrayOutputStream segment = new ByteArrayOutputStream();
+
+    try {
+      for (int i = 0; i < size; i++) {
+        byte[] bytes = DTOCacheSerializer.SMILE_MAPPER.writeValueAsBytes(sorted.get(i));
+
+        if (segment.size() > 0 && segment.size() + bytes.length > SEGMENT_SIZE) {
+          segments.add(toDirectBuffer(segment));
+          segment.reset();
+        }
+
+        ids[i] = sorted.get(i).getId();
+        segmentIndexes[i] = segments.size();
+        offsets[i] = segment.size();
+        lengths[i] = bytes.length;
+        segment.write(bytes);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot encode " + type.getSimpleName() + " snapshot", e);
+    }
+
+    if (segment.size() > 0) {
+      segments.add(toDirectBuffer(segment));
+    }
+
+    return new DTOSnapshot<>(type, segments.toArray(new ByteBuffer[0]), ids, segmentIndexes, offsets, lengths);
+  }
+
+  private static ByteBuffer toDirectBuffer(ByteArrayOutputStream segment) {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(segment.size());
+    buffer.put(segment.toByteArray());
+    buffer.flip();
+    return buffer.asReadOnlyBuffer();
+  }
+
+  public int size() {
+    return ids.length;
+  }
+
+  // Off-heap bytes held by the encoded DTOs
+  public long getSizeInBytes() {
+    return sizeInBytes;
+  }
+
+  public DTO get(long id) {
+    int index = Arrays.binarySearch(ids, id);
+    return index < 0 ? null : decode(index);
+  }
+
+  // DTOs with fromId <= id < toId in id order, decoded as the list is read
+  public List<DTO> range(long fromId, long toId) {
+    int from = lowerBound(fromId);
+    int to = Math.max(from, lowerBound(toId));
+
+    return new AbstractList<DTO>() {
+      @Override
+      public DTO get(int index) {
+        if (index < 0 || index >= to - from) {
+          throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + (to - from));
+        }
+
+        return decode(from + index);
+      }
+
+      @Override
+      public int size() {
+        return to - from;
+      }
+    };
+  }
+
+  public List<DTO> getAll() {
+    return range(Long.MIN_VALUE, Long.MAX_VALUE);
+  }
+
+  private int lowerBound(long id) {
+    int index = Arrays.binarySearch(ids, id);
+    return index < 0 ? -index - 1 : index;
+  }
+
+  private DTO decode(int index) {
+    ByteBuffer buffer = segments[segmentIndexes[index]].duplicate();
+    buffer.position(offsets[index]);
+    buffer.limit(offsets[index] + lengths[index]);
+
+    try {
+      return DTOCacheSerializer.SMILE_MAPPER.readValue(new ByteBufferBackedInputStream(buffer), type);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot decode " + type.getSimpleName() + " " + ids[index], e);
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package vn.siplab.medical.education.common.cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.cache.Cache;
+import vn.siplab.medical.education.common.dao.model.BaseEntity;
+
+// Region seen by eviction: id regions evict every id of an entity, id or collection of either;
+// the list region moves to a new version instead, so its stale entries are never read again
+// and expire with the region's time-to-live. Versions are random, never a constant: a version
+// key lost to eviction or expiry is seeded again with a new one, so list entries cached under an
+// earlier version cannot become valid again.
+public class EntityCache implements Cache {
+
+  public static final String VERSION_KEY = "#version";
+
+  private final Cache cache;
+
+  private final CacheRegion region;
+
+  public EntityCache(Cache cache, CacheRegion region) {
+    this.cache = cache;
+    this.region = region;
+  }
+
+  public static Object getVersion(Cache cache) {
+    ValueWrapper version = cache.get(VERSION_KEY);
+    if (version != null && version.get() != null) {
+      return version.get();
+    }
+
+    // Concurrent seeds, here or on other instances, agree on the first one stored
+    Object seed = newVersion();
+    version = cache.putIfAbsent(VERSION_KEY, seed);
+    return version == null || version.get() == null ? seed : version.get();
+  }
+
+  private static Object newVersion() {
+    return ThreadLocalRandom.current().nextLong();
+  }
+
+  @Override
+  public String getName() {
+    return cache.getName();
+  }
+
+  @Override
+  public Object getNativeCache() {
+    return cache.getNativeCache();
+  }
+
+  @Override
+  public ValueWrapper get(Object key) {
+    return cache.get(key);
+  }
+
+  @Override
+  public <T> T get(Object key, Class<T> type) {
+    return cache.get(key, type);
+  }
+
+  @Override
+  public <T> T get(Object key, Callable<T> valueLoader) {
+    return cache.get(key, valueLoader);
+  }
+
+  @Override
+  public void put(Object key, Object value) {
+    cache.put(key, value);
+  }
+
+  @Override
+  public ValueWrapper putIfAbsent(Object key, Object value) {
+    return cache.putIfAbsent(key, value);
+  }
+
+  @Override
+  public void evict(Object key) {
+    if (!region.isIdKeyed()) {
+      cache.put(VERSION_KEY, newVersion());
+      return;
+    }
+
+    if (key instanceof Iterable) {
+      ((Iterable<?>) key).forEach(this::evict);
+    } else if (key instanceof BaseEntity) {
+      cache.evict(((BaseEntity) key).getId());
+    } else if (key != null) {
+      cache.evict(key);
+    }
+  }
+
+  @Override
+  public void clear() {
+    cache.clear();
+  }
+}
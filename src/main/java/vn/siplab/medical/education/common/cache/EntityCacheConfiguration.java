@@ -0,0 +1,27 @@
+package vn.siplab.medical.education.common.cache;
+
+import java.time.Duration;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.transaction.PlatformTransactionManager;
+
+// The cache manager is looked up on first use, so these beans also load with caching disabled
+@Configuration
+public class EntityCacheConfiguration {
+
+  @Bean(EntityCacheResolver.NAME)
+  public EntityCacheResolver entityCacheResolver(@Lazy CacheManager cacheManager,
+      @Value("${common.cache.refresh-after:0s}") Duration refreshAfter,
+      ObjectProvider<PlatformTransactionManager> transactionManager) {
+    return new EntityCacheResolver(cacheManager, refreshAfter, transactionManager.getIfAvailable());
+  }
+
+  @Bean(EntityCacheKeyGenerator.NAME)
+  public EntityCacheKeyGenerator entityCacheKeyGenerator(@Lazy CacheManager cacheManager) {
+    return new EntityCacheKeyGenerator(cacheManager);
+  }
+}
@@ -0,0 +1,33 @@
+package vn.siplab.medical.education.common.cache;
+
+import java.lang.reflect.Method;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleKey;
+
+// Id regions are keyed by the id alone so a write can evict them; list entries are keyed by the
+// current version of the entity's list region (its tag) and the fingerprint of the arguments
+public class EntityCacheKeyGenerator implements KeyGenerator {
+
+  public static final String NAME = "entityCacheKeyGenerator";
+
+  private final CacheManager cacheManager;
+
+  public EntityCacheKeyGenerator(CacheManager cacheManager) {
+    this.cacheManager = cacheManager;
+  }
+
+  @Override
+  public Object generate(Object target, Method method, Object... params) {
+    CacheRegion region = CacheRegion.of(method, params);
+    if (region.isIdKeyed() && params.length > 0) {
+      return params[0];
+    }
+
+    Cache cache = cacheManager.getCache(CacheRegion.LIST.getName(EntityCacheUtil.getEntityClass(target)));
+    Object version = cache == null ? 0L : EntityCache.getVersion(cache);
+
+    return new SimpleKey(version, method.getName(), CacheKeyUtil.fingerprint(params));
+  }
+}
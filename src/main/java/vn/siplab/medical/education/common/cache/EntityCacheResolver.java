@@ -0,0 +1,112 @@
+package vn.siplab.medical.education.common.cache;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.CacheEvictOperation;
+import org.springframework.cache.interceptor.CacheOperationInvocationContext;
+import org.springframework.cache.interceptor.CacheResolver;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Reads use the region of the entity owning the service or repository; evictions reach every
+// region of that entity only, and inside a transaction wait for its commit, so a reader cannot
+// cache the old row again before the new one is visible, and a rollback evicts nothing
+public class EntityCacheResolver implements CacheResolver, DisposableBean {
+
+  public static final String NAME = "entityCacheResolver";
+
+  private static final int REFRESH_THREADS = 4;
+
+  // Refreshes beyond this many waiting are dropped, the entries stay cached as they are
+  private static final int REFRESH_QUEUE_SIZE = 1000;
+
+  private final CacheManager cacheManager;
+
+  private final Duration refreshAfter;
+
+  private final ThreadPoolExecutor refreshExecutor;
+
+  private final TransactionTemplate refreshTransaction;
+
+  private final Map<String, CoalescingCache> caches = new ConcurrentHashMap<>();
+
+  // A null transaction manager refreshes outside of a transaction
+  public EntityCacheResolver(CacheManager cacheManager, Duration refreshAfter,
+      PlatformTransactionManager transactionManager) {
+    this.cacheManager = cacheManager;
+    this.refreshAfter = refreshAfter;
+
+    if (transactionManager != null) {
+      refreshTransaction = new TransactionTemplate(transactionManager);
+      refreshTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+      refreshTransaction.setReadOnly(true);
+    } else {
+      refreshTransaction = null;
+    }
+
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("cache-refresh-");
+    threadFactory.setDaemon(true);
+    this.refreshExecutor = new ThreadPoolExecutor(REFRESH_THREADS, REFRESH_THREADS, 60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(REFRESH_QUEUE_SIZE), threadFactory);
+    this.refreshExecutor.allowCoreThreadTimeOut(true);
+  }
+
+  @Override
+  public Collection<? extends Cache> resolveCaches(CacheOperationInvocationContext<?> context) {
+    if (!(context.getOperation() instanceof CacheEvictOperation)) {
+      Cache cache = getCache(context.getTarget(), context.getMethod(), context.getArgs());
+      return cache == null ? Collections.emptyList() : Collections.singletonList(cache);
+    }
+
+    Class<?> entityClass = EntityCacheUtil.getEntityClass(context.getTarget());
+    List<Cache> caches = new ArrayList<>();
+    for (CacheRegion region : CacheRegion.values()) {
+      Cache cache = cacheManager.getCache(region.getName(entityClass));
+      if (cache != null) {
+        caches.add(new TransactionAwareCacheDecorator(new EntityCache(cache, region)));
+      }
+    }
+
+    return caches;
+  }
+
+  // Region read by a cached method of a service or repository, also used to put values directly
+  public Cache getCache(Object target, Method method, Object[] args) {
+    return getCoalescingCache(CacheRegion.of(method, args).getName(EntityCacheUtil.getEntityClass(target)));
+  }
+
+  // One instance per region so concurrent reads share their in-flight loads
+  private Cache getCoalescingCache(String name) {
+    CoalescingCache coalescingCache = caches.get(name);
+    if (coalescingCache != null) {
+      return coalescingCache;
+    }
+
+    Cache cache = cacheManager.getCache(name);
+    if (cache == null) {
+      return null;
+    }
+
+    return caches.computeIfAbsent(name, key -> new CoalescingCache(cache, refreshAfter, refreshExecutor, refreshTransaction));
+  }
+
+  @Override
+  public void destroy() {
+    refreshExecutor.shutdownNow();
+  }
+}
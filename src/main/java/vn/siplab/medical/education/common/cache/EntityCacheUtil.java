@@ -0,0 +1,41 @@
+package vn.siplab.medical.education.common.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.core.ResolvableType;
+import org.springframework.util.ClassUtils;
+import vn.siplab.medical.education.common.dao.model.BaseEntity;
+import vn.siplab.medical.education.common.dao.repositoty.BaseRepository;
+import vn.siplab.medical.education.common.service.AbstractBaseMapService;
+
+public final class EntityCacheUtil {
+
+  private static final Map<Class<?>, Class<?>> ENTITY_CLASSES = new ConcurrentHashMap<>();
+
+  // Entity type of a service or of a repository (also behind a Spring Data proxy)
+  public static Class<?> getEntityClass(Object target) {
+    return ENTITY_CLASSES.computeIfAbsent(target.getClass(), EntityCacheUtil::findEntityClass);
+  }
+
+  // A repository proxy class implements the user's repository interface, which binds the type
+  private static Class<?> findEntityClass(Class<?> targetClass) {
+    Class<?> entityClass = ResolvableType.forClass(ClassUtils.getUserClass(targetClass))
+        .as(AbstractBaseMapService.class).getGeneric(0).resolve();
+    if (isEntityClass(entityClass)) {
+      return entityClass;
+    }
+
+    for (Class<?> type : ClassUtils.getAllInterfacesForClassAsSet(targetClass)) {
+      entityClass = ResolvableType.forClass(type).as(BaseRepository.class).getGeneric(0).resolve();
+      if (isEntityClass(entityClass)) {
+        return entityClass;
+      }
+    }
+
+    throw new IllegalStateException("No entity type for " + targetClass.getName());
+  }
+
+  private static boolean isEntityClass(Class<?> type) {
+    return type != null && type != BaseEntity.class && BaseEntity.class.isAssignableFrom(type);
+  }
+}
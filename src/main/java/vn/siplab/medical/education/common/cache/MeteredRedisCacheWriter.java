@@ -0,0 +1,84 @@
+package vn.siplab.medical.education.common.cache;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.data.redis.cache.CacheStatistics;
+import org.springframework.data.redis.cache.CacheStatisticsCollector;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+// Records the size of the payloads written to and read from each cache region as
+// common.cache.payload (bytes, tags cache and operation)
+public class MeteredRedisCacheWriter implements RedisCacheWriter {
+
+  private final RedisCacheWriter cacheWriter;
+
+  private final Map<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+  public MeteredRedisCacheWriter(RedisCacheWriter cacheWriter) {
+    this.cacheWriter = cacheWriter;
+  }
+
+  @Override
+  public void put(String name, byte[] key, byte[] value, Duration ttl) {
+    cacheWriter.put(name, key, value, ttl);
+    record(name, "put", value);
+  }
+
+  @Override
+  public byte[] get(String name, byte[] key) {
+    byte[] value = cacheWriter.get(name, key);
+    record(name, "get", value);
+    return value;
+  }
+
+  @Override
+  public byte[] putIfAbsent(String name, byte[] key, byte[] value, Duration ttl) {
+    byte[] existing = cacheWriter.putIfAbsent(name, key, value, ttl);
+    if (existing == null) {
+      record(name, "put", value);
+    }
+
+    return existing;
+  }
+
+  @Override
+  public void remove(String name, byte[] key) {
+    cacheWriter.remove(name, key);
+  }
+
+  @Override
+  public void clean(String name, byte[] pattern) {
+    cacheWriter.clean(name, pattern);
+  }
+
+  @Override
+  public void clearStatistics(String name) {
+    cacheWriter.clearStatistics(name);
+  }
+
+  @Override
+  public RedisCacheWriter withStatisticsCollector(CacheStatisticsCollector cacheStatisticsCollector) {
+    return new MeteredRedisCacheWriter(cacheWriter.withStatisticsCollector(cacheStatisticsCollector));
+  }
+
+  @Override
+  public CacheStatistics getCacheStatistics(String cacheName) {
+    return cacheWriter.getCacheStatistics(cacheName);
+  }
+
+  private void record(String name, String operation, byte[] value) {
+    if (value == null) {
+      return;
+    }
+
+    summaries.computeIfAbsent(name + ":" + operation, key -> DistributionSummary.builder("common.cache.payload")
+        .baseUnit("bytes")
+        .tag("cache", name)
+        .tag("operation", operation)
+        .register(Metrics.globalRegistry))
+        .record(value.length);
+  }
+}
@@ -0,0 +1,140 @@
+package vn.siplab.medical.education.common.cache;
+
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.util.CastUtils;
+
+// In-process L1 in front of the shared Redis L2. Evictions, clears and puts replacing a stored
+// value are published so the other nodes drop their L1 copy; a put filling a miss is not, as no
+// node can hold a copy of it. L1 is keyed by the string form of the key, as Redis is, so that
+// published keys match.
+public class TwoLevelCache implements Cache {
+
+  private final String name;
+
+  private final com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> local;
+
+  private final Cache remote;
+
+  private final Consumer<CacheInvalidation> publisher;
+
+  private final String origin;
+
+  public TwoLevelCache(String name, com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> local,
+      Cache remote, Consumer<CacheInvalidation> publisher, String origin) {
+    this.name = name;
+    this.local = local;
+    this.remote = remote;
+    this.publisher = publisher;
+    this.origin = origin;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public Object getNativeCache() {
+    return remote.getNativeCache();
+  }
+
+  @Override
+  public ValueWrapper get(Object key) {
+    ValueWrapper value = local.getIfPresent(toLocalKey(key));
+    if (value != null) {
+      return value;
+    }
+
+    value = remote.get(key);
+    if (value != null) {
+      local.put(toLocalKey(key), value);
+    }
+
+    return value;
+  }
+
+  @Override
+  public <T> T get(Object key, Class<T> type) {
+    ValueWrapper value = get(key);
+    if (value == null) {
+      return null;
+    }
+
+    Object result = value.get();
+    if (result != null && type != null && !type.isInstance(result)) {
+      throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + result);
+    }
+
+    return type == null ? CastUtils.cast(result) : type.cast(result);
+  }
+
+  @Override
+  public <T> T get(Object key, Callable<T> valueLoader) {
+    ValueWrapper value = local.getIfPresent(toLocalKey(key));
+    if (value != null) {
+      return CastUtils.cast(value.get());
+    }
+
+    T result = remote.get(key, valueLoader);
+    local.put(toLocalKey(key), new SimpleValueWrapper(result));
+
+    return result;
+  }
+
+  // Tries an insert first: one write when filling a miss, a second one and a message when
+  // replacing
+  @Override
+  public void put(Object key, Object value) {
+    boolean replaced = remote.putIfAbsent(key, value) != null;
+    if (replaced) {
+      remote.put(key, value);
+    }
+    local.put(toLocalKey(key), new SimpleValueWrapper(value));
+
+    if (replaced) {
+      publisher.accept(new CacheInvalidation(origin, name, toLocalKey(key)));
+    }
+  }
+
+  // Atomic on Redis; the stored value is the one every node reads, so nothing is published
+  @Override
+  public ValueWrapper putIfAbsent(Object key, Object value) {
+    ValueWrapper existing = remote.putIfAbsent(key, value);
+    local.put(toLocalKey(key), existing != null ? existing : new SimpleValueWrapper(value));
+
+    return existing;
+  }
+
+  @Override
+  public void evict(Object key) {
+    remote.evict(key);
+    local.invalidate(toLocalKey(key));
+
+    publisher.accept(new CacheInvalidation(origin, name, toLocalKey(key)));
+  }
+
+  @Override
+  public void clear() {
+    remote.clear();
+    local.invalidateAll();
+
+    publisher.accept(new CacheInvalidation(origin, name, null));
+  }
+
+  // Applies a change published by another node to the local level only
+  public void invalidateLocal(String key) {
+    if (key == null) {
+      local.invalidateAll();
+    } else {
+      local.invalidate(key);
+    }
+  }
+
+  // What RedisCache stores the key under for the ids and SimpleKeys used here
+  private static String toLocalKey(Object key) {
+    return String.valueOf(key);
+  }
+}
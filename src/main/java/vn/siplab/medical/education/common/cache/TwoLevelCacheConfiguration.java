@@ -0,0 +1,73 @@
+package vn.siplab.medical.education.common.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import vn.siplab.medical.education.common.cache.TwoLevelCacheProperties.CacheCodec;
+
+// Enabled with common.cache.two-level.enabled=true; any RedisConnectionFactory works, so an
+// embedded Redis can stand in for tests
+@Configuration
+@ConditionalOnProperty(prefix = "common.cache.two-level", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(TwoLevelCacheProperties.class)
+public class TwoLevelCacheConfiguration {
+
+  @Bean
+  public RedisTemplate<String, String> cacheInvalidationTemplate(RedisConnectionFactory connectionFactory) {
+    RedisTemplate<String, String> template = new RedisTemplate<>();
+    template.setConnectionFactory(connectionFactory);
+    template.setKeySerializer(new StringRedisSerializer());
+    template.setValueSerializer(new StringRedisSerializer());
+    return template;
+  }
+
+  @Bean
+  @Primary
+  public TwoLevelCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+      TwoLevelCacheProperties properties, RedisTemplate<String, String> cacheInvalidationTemplate) {
+    RedisCacheConfiguration cacheConfiguration = RedisCacheConfiguration.defaultCacheConfig()
+        .entryTtl(properties.getTimeToLive());
+
+    if (properties.getCodec() == CacheCodec.SMILE) {
+      cacheConfiguration = cacheConfiguration.serializeValuesWith(SerializationPair.fromSerializer(
+          new DTOCacheSerializer(getClass().getClassLoader(), properties.getCompressionThreshold())));
+    }
+
+    CacheManager remoteCacheManager = RedisCacheManager
+        .builder(new MeteredRedisCacheWriter(RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory)))
+        .cacheDefaults(cacheConfiguration)
+        .build();
+
+    return new TwoLevelCacheManager(remoteCacheManager, properties,
+        invalidation -> cacheInvalidationTemplate.convertAndSend(properties.getChannel(), invalidation.toMessage()));
+  }
+
+  @Bean
+  public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+      TwoLevelCacheProperties properties, TwoLevelCacheManager cacheManager) {
+    StringRedisSerializer serializer = new StringRedisSerializer();
+
+    RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    container.setConnectionFactory(connectionFactory);
+    container.addMessageListener((message, pattern) -> {
+      CacheInvalidation invalidation = CacheInvalidation.fromMessage(serializer.deserialize(message.getBody()));
+      if (invalidation != null) {
+        cacheManager.onInvalidation(invalidation);
+      }
+    }, new ChannelTopic(properties.getChannel()));
+
+    return container;
+  }
+}
@@ -0,0 +1,65 @@
+package vn.siplab.medical.education.common.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+public class TwoLevelCacheManager implements CacheManager {
+
+  private final String origin = UUID.randomUUID().toString();
+
+  private final CacheManager remoteCacheManager;
+
+  private final TwoLevelCacheProperties properties;
+
+  private final Consumer<CacheInvalidation> publisher;
+
+  private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+  public TwoLevelCacheManager(CacheManager remoteCacheManager, TwoLevelCacheProperties properties,
+      Consumer<CacheInvalidation> publisher) {
+    this.remoteCacheManager = remoteCacheManager;
+    this.properties = properties;
+    this.publisher = publisher;
+  }
+
+  @Override
+  public Cache getCache(String name) {
+    return caches.computeIfAbsent(name, this::createCache);
+  }
+
+  private TwoLevelCache createCache(String name) {
+    Cache remote = remoteCacheManager.getCache(name);
+    if (remote == null) {
+      return null;
+    }
+
+    return new TwoLevelCache(name, Caffeine.newBuilder()
+        .maximumSize(properties.getLocalMaximumSize())
+        .expireAfterWrite(properties.getLocalTimeToLive())
+        .build(), remote, publisher, origin);
+  }
+
+  @Override
+  public Collection<String> getCacheNames() {
+    return Collections.unmodifiableSet(caches.keySet());
+  }
+
+  // Messages from this node were already applied when they were published
+  public void onInvalidation(CacheInvalidation invalidation) {
+    if (origin.equals(invalidation.getOrigin())) {
+      return;
+    }
+
+    TwoLevelCache cache = caches.get(invalidation.getCacheName());
+    if (cache != null) {
+      cache.invalidateLocal(invalidation.getKey());
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package vn.siplab.medical.education.common.cache;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "common.cache.two-level")
+public class TwoLevelCacheProperties {
+
+  private boolean enabled;
+
+  // In-process entries per region
+  private long localMaximumSize = 10000;
+
+  private Duration localTimeToLive = Duration.ofMinutes(1);
+
+  // Redis entries; also ends the stale list versions of a region
+  private Duration timeToLive = Duration.ofMinutes(30);
+
+  private String channel = "common.cache.invalidation";
+
+  // jdk keeps plain JDK serialization; smile writes DTOs as Smile (see DTOCacheSerializer)
+  private CacheCodec codec = CacheCodec.JDK;
+
+  // Smile payloads larger than this are LZ4 compressed; negative disables compression
+  private int compressionThreshold = 2048;
+
+  public enum CacheCodec {
+    JDK, SMILE
+  }
+}
@@ -1,33 +1,50 @@
 package vn.siplab.medical.education.common.dao.repositoty;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
+import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.util.CastUtils;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.transaction.annotation.Transactional;
+import vn.siplab.medical.education.common.cache.EntityCacheKeyGenerator;
+import vn.siplab.medical.education.common.cache.EntityCacheResolver;
 import vn.siplab.medical.education.common.dao.model.BaseEntity;
 import vn.siplab.medical.education.common.dto.BaseDTO;
+import vn.siplab.medical.education.common.until.CollectionUtil;
 
+// Cached reads and evictions go to the regions of the entity type, see CacheRegion
 @NoRepositoryBean
+@CacheConfig(cacheResolver = EntityCacheResolver.NAME, keyGenerator = EntityCacheKeyGenerator.NAME)
 public interface BaseRepository<Entity extends BaseEntity, DTO extends BaseDTO, ID extends Long>
     extends CrudRepository<Entity, ID> {
 
+  int MAX_IN_PARAMETERS = 1000;
+
+  int FETCH_SIZE = 500;
+
   @Override
-  @CacheEvict(allEntries = true)
+  @CacheEvict(key = "#result")
   @Transactional
   @Modifying
   <S extends Entity> S save(S entity);
 
   @Override
-  @CacheEvict(allEntries = true)
+  @CacheEvict(key = "#result")
   <S extends Entity> List<S> saveAll(Iterable<S> entities);
 
   @Override
@@ -35,6 +52,13 @@ public interface BaseRepository<Entity extends BaseEntity, DTO extends BaseDTO,
   @Query("select e from #{#entityName} e")
   List<Entity> findAll();
 
+  @Transactional(readOnly = true)
+  @QueryHints({
+      @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + FETCH_SIZE),
+      @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")})
+  @Query("select e from #{#entityName} e")
+  Stream<Entity> streamAll();
+
   @Override
   @Transactional(readOnly = true)
   @Query("select e from #{#entityName} e where e.id in ?1")
@@ -45,7 +69,24 @@ public interface BaseRepository<Entity extends BaseEntity, DTO extends BaseDTO,
   @Query("select e from #{#entityName} e where e.id = ?1")
   Optional<Entity> findById(ID id);
 
-  @Cacheable
+  // Loads with the named entity graph as a fetch graph; a null graph falls back to findById(id)
+  @Transactional(readOnly = true)
+  Optional<Entity> findById(ID id, String graph);
+
+  // Loads with the named entity graph as a fetch graph; also initializes the graph of entities
+  // already in the persistence context, e.g. a search page
+  @Transactional(readOnly = true)
+  List<Entity> findAllById(Iterable<ID> ids, String graph);
+
+  // Entities of any mapped type, used to batch association lookups while mapping
+  @Transactional(readOnly = true)
+  <T extends BaseEntity> List<T> findAllById(Class<T> type, Collection<Long> ids);
+
+  // Unmanaged entity holding only the id and the given basic attributes, read in one tuple query
+  @Transactional(readOnly = true)
+  Optional<Entity> findProjectionById(ID id, Collection<String> attributes);
+
+  @Cacheable(sync = true)
   @Override
   @Transactional(readOnly = true)
   @Query("select case when count(e) > 0 then true else false end from #{#entityName} e"
@@ -60,7 +101,7 @@ public interface BaseRepository<Entity extends BaseEntity, DTO extends BaseDTO,
   void deleteById(ID id);
 
   @Override
-  @CacheEvict(allEntries = true)
+  @CacheEvict(key = "#p0")
   @Query("update #{#entityName} e set e.deleted = e.id where e.id = ?#{#entity.id}")
   @Transactional
   @Modifying
@@ -71,11 +112,34 @@ public interface BaseRepository<Entity extends BaseEntity, DTO extends BaseDTO,
       + " and 1=2")
   boolean existsForeignKeyConstraint(Long id);
 
+  // Redeclare with a set-based @Query ("... where e.id in ?1 and ...") to check all ids at once
+  @Transactional(readOnly = true)
+  default List<Long> findForeignKeyConstraintIds(Iterable<Long> ids) {
+    List<Long> result = new ArrayList<>();
+
+    ids.forEach(id -> {
+      if (existsForeignKeyConstraint(id)) {
+        result.add(id);
+      }
+    });
+
+    return result;
+  }
+
+  @CacheEvict(key = "#p0")
+  @Query("update #{#entityName} e set e.deleted = e.id where e.id in ?1")
+  @Transactional
+  @Modifying
+  void deleteByIds(Iterable<ID> ids);
+
   @Override
-  @CacheEvict(allEntries = true)
+  @CacheEvict(key = "#p0")
   @Transactional
   default void deleteAll(Iterable<? extends Entity> entities) {
-    entities.forEach(entity -> delete(entity));
+    List<ID> ids = new ArrayList<>();
+    entities.forEach(entity -> ids.add(CastUtils.cast(entity.getId())));
+
+    CollectionUtil.partition(ids, MAX_IN_PARAMETERS).forEach(this::deleteByIds);
   }
 
   @Override
@@ -85,16 +149,50 @@ public interface BaseRepository<Entity extends BaseEntity, DTO extends BaseDTO,
   @Modifying
   void deleteAll();
 
-  @Cacheable
+  @Cacheable(sync = true)
   @Transactional(readOnly = true)
   @Query("select e.active from #{#entityName} e where e.id = ?1")
   Boolean getActiveById(ID id);
 
+  // Ids with the given active flag, read once to build the active id index
+  @Transactional(readOnly = true)
+  @QueryHints({
+      @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + FETCH_SIZE),
+      @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")})
+  @Query("select e.id from #{#entityName} e where e.active = ?1")
+  Stream<Long> streamIdsByActive(Boolean active);
+
   @Transactional(readOnly = true)
   @Query("select e from #{#entityName} e"
       + " where 1 = 1"
       + " and (?#{@f.isNull(#dto.active)} = true or e.active = ?#{#dto.active})")
   Page<Entity> search(DTO dto, Pageable pageable);
 
+  // Redeclare with the filters of search; idBefore/idAfter carry the keyset seek
+  @Transactional(readOnly = true)
+  @Query("select e from #{#entityName} e"
+      + " where 1 = 1"
+      + " and (?#{@f.isNull(#dto.active)} = true or e.active = ?#{#dto.active})"
+      + " and (?#{@f.isNull(#dto.idBefore)} = true or e.id < ?#{#dto.idBefore})"
+      + " and (?#{@f.isNull(#dto.idAfter)} = true or e.id > ?#{#dto.idAfter})")
+  Slice<Entity> searchSlice(DTO dto, Pageable pageable);
+
+  // Redeclare with the filters of search; a List result runs with the page limit and no count
+  @Transactional(readOnly = true)
+  @Query("select e from #{#entityName} e"
+      + " where 1 = 1"
+      + " and (?#{@f.isNull(#dto.active)} = true or e.active = ?#{#dto.active})")
+  List<Entity> searchFirst(DTO dto, Pageable pageable);
+
   List<?> callProcedure(String name, Map<String, Object> params);
+
+  void flush();
+
+  void clear();
+
+  void detach(Entity entity);
+
+  Integer getJdbcBatchSize();
+
+  void setJdbcBatchSize(Integer batchSize);
 }
\ No newline at end of file
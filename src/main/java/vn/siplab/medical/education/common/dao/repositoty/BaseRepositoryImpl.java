@@ -1,11 +1,32 @@
 package vn.siplab.medical.education.common.dao.repositoty;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
 import javax.persistence.EntityManager;
 import javax.persistence.StoredProcedureQuery;
+import javax.persistence.Tuple;
+import javax.persistence.TupleElement;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import javax.persistence.metamodel.Attribute.PersistentAttributeType;
+import javax.persistence.metamodel.SingularAttribute;
+import org.hibernate.Session;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.ConfigurablePropertyAccessor;
+import org.springframework.beans.PropertyAccessorFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
 import vn.siplab.medical.education.common.dao.model.BaseEntity;
@@ -21,21 +42,131 @@ public class BaseRepositoryImpl<Entity extends BaseEntity, DTO extends BaseDTO,
     this.entityManager = entityManager;
   }
 
+  @Override
+  public Optional<Entity> findById(ID id, String graph) {
+    if (graph == null) {
+      return findById(id);
+    }
+
+    List<Entity> entities = createGraphQuery(graph, root -> root.get("id").in(id)).getResultList();
+
+    return entities.isEmpty() ? Optional.empty() : Optional.of(entities.get(0));
+  }
+
+  @Override
+  public List<Entity> findAllById(Iterable<ID> ids, String graph) {
+    if (graph == null) {
+      return findAllById(ids);
+    }
+
+    List<ID> values = new ArrayList<>();
+    ids.forEach(values::add);
+    if (values.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    return createGraphQuery(graph, root -> root.get("id").in(values)).getResultList();
+  }
+
+  @Override
+  public <T extends BaseEntity> List<T> findAllById(Class<T> type, Collection<Long> ids) {
+    if (ids.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    CriteriaQuery<T> query = entityManager.getCriteriaBuilder().createQuery(type);
+    Root<T> root = query.from(type);
+
+    query.select(root).where(root.get("id").in(ids));
+
+    return entityManager.createQuery(query).getResultList();
+  }
+
+  private TypedQuery<Entity> createGraphQuery(String graph, Function<Root<Entity>, Predicate> where) {
+    CriteriaQuery<Entity> query = entityManager.getCriteriaBuilder().createQuery(getDomainClass());
+    Root<Entity> root = query.from(getDomainClass());
+
+    query.select(root).where(where.apply(root));
+
+    return entityManager.createQuery(query)
+        .setHint(QueryHints.HINT_FETCHGRAPH, entityManager.getEntityGraph(graph));
+  }
+
+  @Override
+  public Optional<Entity> findProjectionById(ID id, Collection<String> attributes) {
+    CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Tuple> query = builder.createTupleQuery();
+    Root<Entity> root = query.from(getDomainClass());
+
+    List<Selection<?>> selections = new ArrayList<>();
+    for (SingularAttribute<? super Entity, ?> attribute : entityManager.getMetamodel()
+        .entity(getDomainClass()).getSingularAttributes()) {
+      if (attribute.getPersistentAttributeType() == PersistentAttributeType.BASIC
+          && (attribute.isId() || attributes.contains(attribute.getName()))) {
+        selections.add(root.get(attribute.getName()).alias(attribute.getName()));
+      }
+    }
+
+    query.multiselect(selections).where(builder.equal(root.get("id"), id));
+
+    List<Tuple> tuples = entityManager.createQuery(query)
+        .setHint(QueryHints.HINT_READONLY, true)
+        .setMaxResults(1)
+        .getResultList();
+    if (tuples.isEmpty()) {
+      return Optional.empty();
+    }
+
+    Entity entity = BeanUtils.instantiateClass(getDomainClass());
+    ConfigurablePropertyAccessor accessor = PropertyAccessorFactory.forDirectFieldAccess(entity);
+
+    Tuple tuple = tuples.get(0);
+    for (TupleElement<?> element : tuple.getElements()) {
+      accessor.setPropertyValue(element.getAlias(), tuple.get(element));
+    }
+
+    return Optional.of(entity);
+  }
+
   @Override
   public boolean existsForeignKeyConstraint(Long id) {
     return false;
   }
 
+  @Override
+  public void deleteByIds(Iterable<ID> ids) {
+  }
+
+  @Override
+  public Stream<Entity> streamAll() {
+    return null;
+  }
+
   @Override
   public Boolean getActiveById(ID id) {
     return null;
   }
 
+  @Override
+  public Stream<Long> streamIdsByActive(Boolean active) {
+    return null;
+  }
+
   @Override
   public Page<Entity> search(DTO dto, Pageable pageable) {
     return null;
   }
 
+  @Override
+  public Slice<Entity> searchSlice(DTO dto, Pageable pageable) {
+    return null;
+  }
+
+  @Override
+  public List<Entity> searchFirst(DTO dto, Pageable pageable) {
+    return null;
+  }
+
   @Override
   public List<?> callProcedure(String name, Map<String, Object> params) {
     StoredProcedureQuery procedureQuery = entityManager.createNamedStoredProcedureQuery(name);
@@ -46,4 +177,24 @@ public class BaseRepositoryImpl<Entity extends BaseEntity, DTO extends BaseDTO,
 
     return procedureQuery.getResultList();
   }
+
+  @Override
+  public void clear() {
+    entityManager.clear();
+  }
+
+  @Override
+  public void detach(Entity entity) {
+    entityManager.detach(entity);
+  }
+
+  @Override
+  public Integer getJdbcBatchSize() {
+    return entityManager.unwrap(Session.class).getJdbcBatchSize();
+  }
+
+  @Override
+  public void setJdbcBatchSize(Integer batchSize) {
+    entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+  }
 }
\ No newline at end of file
@@ -8,7 +8,6 @@ import com.fasterxml.jackson.annotation.JsonProperty.Access;
 import io.swagger.annotations.ApiModelProperty;
 import java.time.ZonedDateTime;
 import java.util.Objects;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -17,8 +16,7 @@ import lombok.ToString;
 @Setter
 @Getter
 @NoArgsConstructor
-@AllArgsConstructor
-@ToString(exclude = {"language", "message", "code"}, callSuper = true)
+@ToString(exclude = {"language", "message", "code", "cursor"}, callSuper = true)
 public class BaseDTO extends DTO {
 
   @JsonInclude(Include.NON_NULL)
@@ -62,6 +60,35 @@ public class BaseDTO extends DTO {
   @ApiModelProperty(hidden = true)
   private String language;
 
+  // Keyset paging of searchSlice works on a sort by id alone (the default id DESC); with any
+  // other sort the slice has no nextCursor and a cursor is rejected
+  @JsonProperty(access = Access.WRITE_ONLY)
+  @ApiModelProperty(value = "nextCursor of the previous searchSlice page; only valid when sorting by id alone")
+  private String cursor;
+
+  @JsonIgnore
+  @ApiModelProperty(hidden = true)
+  private Long idBefore;
+
+  @JsonIgnore
+  @ApiModelProperty(hidden = true)
+  private Long idAfter;
+
+  // The constructor @AllArgsConstructor generated before the keyset fields were added
+  public BaseDTO(Long id, Boolean active, ZonedDateTime createdAt, ZonedDateTime updatedAt, Long createdBy,
+      Long updatedBy, Integer code, String message, Boolean strictlySearch, String language) {
+    this.id = id;
+    this.active = active;
+    this.createdAt = createdAt;
+    this.updatedAt = updatedAt;
+    this.createdBy = createdBy;
+    this.updatedBy = updatedBy;
+    this.code = code;
+    this.message = message;
+    this.strictlySearch = strictlySearch;
+    this.language = language;
+  }
+
   public BaseDTO(Long id, Boolean active) {
     this.id = id;
     this.active = active;
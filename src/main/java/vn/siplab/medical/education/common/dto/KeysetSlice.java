@@ -0,0 +1,28 @@
+package vn.siplab.medical.education.common.dto;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+public class KeysetSlice<T> extends SliceImpl<T> {
+
+  private final String nextCursor;
+
+  public KeysetSlice(List<T> content, Pageable pageable, boolean hasNext, String nextCursor) {
+    super(content, pageable, hasNext);
+    this.nextCursor = nextCursor;
+  }
+
+  public String getNextCursor() {
+    return nextCursor;
+  }
+
+  @Override
+  public <U> KeysetSlice<U> map(Function<? super T, ? extends U> converter) {
+    List<U> content = getContent().stream().map(converter).collect(Collectors.toList());
+
+    return new KeysetSlice<>(content, getPageable(), hasNext(), nextCursor);
+  }
+}
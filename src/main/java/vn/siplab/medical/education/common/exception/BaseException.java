@@ -21,6 +21,12 @@ public class BaseException extends RuntimeException {
     this.code = code;
   }
 
+  // Without a stack trace, for failures thrown often enough that filling it in costs
+  public BaseException(int code, String message, boolean writableStackTrace) {
+    super(message, null, false, writableStackTrace);
+    this.code = code;
+  }
+
   public BaseException(int code, String message, Object data) {
     super(message);
     this.code = code;
@@ -11,6 +11,10 @@ public class DataException extends BaseException {
     super(ERROR_CODE + code, message);
   }
 
+  protected DataException(int code, String message, boolean writableStackTrace) {
+    super(ERROR_CODE + code, message, writableStackTrace);
+  }
+
   public DataException(String message) {
     super(ERROR_CODE, message);
   }
@@ -25,7 +29,12 @@ public class DataException extends BaseException {
   public static class NotFoundEntityById extends DataException {
 
     public NotFoundEntityById(Long id, String entity) {
-      super(2, Msg.getMessage("AbstractBaseService.notFoundEntityById", new Object[]{String.valueOf(id), entity}));
+      this(id, entity, true);
+    }
+
+    public NotFoundEntityById(Long id, String entity, boolean writableStackTrace) {
+      super(2, Msg.getMessage("AbstractBaseService.notFoundEntityById", new Object[]{String.valueOf(id), entity}),
+          writableStackTrace);
     }
   }
 
@@ -70,4 +79,11 @@ public class DataException extends BaseException {
       super(8, Msg.getMessage("AbstractBaseService.cloneNotSupported"));
     }
   }
+
+  public static class InvalidCursor extends DataException {
+
+    public InvalidCursor(String cursor) {
+      super(9, Msg.getMessage("AbstractBaseService.invalidCursor", new Object[]{cursor}));
+    }
+  }
 }
@@ -0,0 +1,240 @@
+package vn.siplab.medical.education.common.mapper;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.TypeMap;
+import org.modelmapper.config.Configuration;
+import org.modelmapper.spi.Mapping;
+import org.modelmapper.spi.PropertyInfo;
+import org.modelmapper.spi.PropertyMapping;
+import org.springframework.beans.BeanUtils;
+
+// Plain getter/setter mapping compiled from a ModelMapper TypeMap whose mappings only copy
+// immutable values, so it maps exactly what ModelMapper would without walking the TypeMap
+public final class AccessorMapper<S, D> {
+
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+  private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+  private final Class<D> destinationType;
+
+  private final MethodHandle constructor;
+
+  private final List<Property> properties;
+
+  private AccessorMapper(Class<D> destinationType, MethodHandle constructor, List<Property> properties) {
+    this.destinationType = destinationType;
+    this.constructor = constructor;
+    this.properties = properties;
+  }
+
+  public static <S, D> AccessorMapper<S, D> create(ModelMapper modelMapper, Class<S> sourceType,
+      Class<D> destinationType) {
+    TypeMap<S, D> typeMap = modelMapper.getTypeMap(sourceType, destinationType);
+    Configuration configuration = modelMapper.getConfiguration();
+
+    if (typeMap == null || configuration.isSkipNullEnabled()
+        || configuration.getPropertyCondition() != ModelMapperUtil.PROPERTY_CONDITION
+        || typeMap.getConverter() != null || typeMap.getPreConverter() != null
+        || typeMap.getPostConverter() != null || typeMap.getCondition() != null
+        || typeMap.getPropertyCondition() != null || typeMap.getProvider() != null) {
+      return null;
+    }
+
+    MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+
+    try {
+      MethodHandle constructor = lookup.unreflectConstructor(destinationType.getConstructor())
+          .asType(MethodType.methodType(Object.class));
+
+      List<Property> properties = new ArrayList<>();
+      for (Mapping mapping : typeMap.getMappings()) {
+        Property property = createProperty(lookup, mapping);
+        if (property == null) {
+          return null;
+        }
+
+        properties.add(property);
+      }
+
+      return new AccessorMapper<>(destinationType, constructor, properties);
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      return null;
+    }
+  }
+
+  private static Property createProperty(MethodHandles.Lookup lookup, Mapping mapping)
+      throws IllegalAccessException {
+    if (!(mapping instanceof PropertyMapping) || mapping.isSkipped()
+        || mapping.getConverter() != null || mapping.getCondition() != null
+        || mapping.getProvider() != null || mapping.getDestinationProperties().size() != 1) {
+      return null;
+    }
+
+    PropertyMapping propertyMapping = (PropertyMapping) mapping;
+    PropertyInfo destination = propertyMapping.getLastDestinationProperty();
+    PropertyInfo source = propertyMapping.getLastSourceProperty();
+
+    if (!source.getType().equals(destination.getType()) || !TypeUtil.isImmutable(destination.getType())) {
+      return null;
+    }
+
+    List<? extends PropertyInfo> sourceProperties = propertyMapping.getSourceProperties();
+    MethodHandle[] getters = new MethodHandle[sourceProperties.size()];
+    for (int i = 0; i < getters.length; i++) {
+      getters[i] = getter(lookup, sourceProperties.get(i).getMember());
+      if (getters[i] == null) {
+        return null;
+      }
+    }
+
+    MethodHandle setter = setter(lookup, destination.getMember());
+    if (setter == null) {
+      return null;
+    }
+
+    Object defaultValue = destination.getType().isPrimitive()
+        ? Array.get(Array.newInstance(destination.getType(), 1), 0) : null;
+
+    return new Property(getters, setter, reader(lookup, destination.getMember()), defaultValue);
+  }
+
+  // Destination getter used to compare values; null when the property is write-only
+  private static MethodHandle reader(MethodHandles.Lookup lookup, Member member)
+      throws IllegalAccessException {
+    if (member instanceof Field) {
+      return getter(lookup, member);
+    }
+
+    PropertyDescriptor descriptor = BeanUtils.findPropertyForMethod((Method) member);
+    if (descriptor == null || descriptor.getReadMethod() == null) {
+      return null;
+    }
+
+    return getter(lookup, descriptor.getReadMethod());
+  }
+
+  private static MethodHandle getter(MethodHandles.Lookup lookup, Member member)
+      throws IllegalAccessException {
+    if (member instanceof Method && ((Method) member).getParameterCount() == 0) {
+      return lookup.unreflect((Method) member).asType(GETTER_TYPE);
+    }
+
+    if (member instanceof Field) {
+      return lookup.unreflectGetter((Field) member).asType(GETTER_TYPE);
+    }
+
+    return null;
+  }
+
+  private static MethodHandle setter(MethodHandles.Lookup lookup, Member member)
+      throws IllegalAccessException {
+    if (member instanceof Method && ((Method) member).getParameterCount() == 1) {
+      return lookup.unreflect((Method) member).asType(SETTER_TYPE);
+    }
+
+    if (member instanceof Field) {
+      return lookup.unreflectSetter((Field) member).asType(SETTER_TYPE);
+    }
+
+    return null;
+  }
+
+  public Class<D> getDestinationType() {
+    return destinationType;
+  }
+
+  public D map(S source) {
+    try {
+      D destination = destinationType.cast((Object) constructor.invokeExact());
+      map(source, destination);
+      return destination;
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public void map(S source, D destination) {
+    try {
+      for (Property property : properties) {
+        Object value = property.get(source);
+
+        property.setter.invokeExact((Object) destination, value != null ? value : property.defaultValue);
+      }
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  // True when map(source, destination) would not change any destination property
+  public boolean matches(S source, D destination) {
+    try {
+      for (Property property : properties) {
+        if (property.reader == null) {
+          return false;
+        }
+
+        Object value = property.get(source);
+
+        if (!Objects.equals(value != null ? value : property.defaultValue,
+            (Object) property.reader.invokeExact((Object) destination))) {
+          return false;
+        }
+      }
+
+      return true;
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static final class Property {
+
+    private final MethodHandle[] getters;
+
+    private final MethodHandle setter;
+
+    private final MethodHandle reader;
+
+    private final Object defaultValue;
+
+    private Property(MethodHandle[] getters, MethodHandle setter, MethodHandle reader,
+        Object defaultValue) {
+      this.getters = getters;
+      this.setter = setter;
+      this.reader = reader;
+      this.defaultValue = defaultValue;
+    }
+
+    private Object get(Object source) throws Throwable {
+      Object value = source;
+
+      for (MethodHandle getter : getters) {
+        if (value == null) {
+          return null;
+        }
+
+        value = (Object) getter.invokeExact(value);
+      }
+
+      return value;
+    }
+  }
+}
@@ -1,7 +1,11 @@
 package vn.siplab.medical.education.common.mapper;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Set;
+import java.util.SortedSet;
 import org.modelmapper.internal.util.Iterables;
 import org.modelmapper.internal.util.MappingContextHelper;
 import org.modelmapper.spi.ConditionalConverter;
@@ -22,14 +26,20 @@ public class CollectionConverter implements ConditionalConverter<Object, Collect
     if (source == null)
       return null;
 
-    Collection<Object> destination = MappingContextHelper.createCollection(context);
+    int size = Iterables.getLength(source);
+    Collection<Object> destination = createCollection(context, size);
     Class<?> elementType = MappingContextHelper.resolveDestinationGenericType(context);
 
+    // Immutable elements are shared as they are, only beans go through the mapping engine
+    boolean immutable = TypeUtil.isImmutable(elementType);
+
     int index = 0;
     for (Iterator<Object> iterator = Iterables.iterator(source); iterator.hasNext(); index++) {
       Object sourceElement = iterator.next();
       Object element = null;
-      if (sourceElement != null) {
+      if (immutable && elementType.isInstance(sourceElement)) {
+        element = sourceElement;
+      } else if (sourceElement != null) {
         MappingContext<?, ?> elementContext = element == null
             ? context.create(sourceElement, elementType)
             : context.create(sourceElement, element);
@@ -40,4 +50,19 @@ public class CollectionConverter implements ConditionalConverter<Object, Collect
 
     return destination;
   }
+
+  private static Collection<Object> createCollection(MappingContext<Object, Collection<Object>> context,
+      int size) {
+    Class<?> destinationType = context.getDestinationType();
+
+    if (!destinationType.isInterface() || SortedSet.class.isAssignableFrom(destinationType)) {
+      return MappingContextHelper.createCollection(context);
+    }
+
+    if (Set.class.isAssignableFrom(destinationType)) {
+      return new HashSet<>(Math.max((int) (size / .75f) + 1, 16));
+    }
+
+    return new ArrayList<>(size);
+  }
 }
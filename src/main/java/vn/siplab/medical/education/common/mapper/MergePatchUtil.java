@@ -0,0 +1,87 @@
+package vn.siplab.medical.education.common.mapper;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ReflectionUtils;
+import vn.siplab.medical.education.common.until.ObjectMapperUtil;
+
+public final class MergePatchUtil {
+
+  private static final Map<Class<?>, Map<String, PropertyDescriptor>> PROPERTIES = new ConcurrentHashMap<>();
+
+  private static final Map<Class<?>, Map<String, String>> JSON_PROPERTIES = new ConcurrentHashMap<>();
+
+  public static Map<String, PropertyDescriptor> getProperties(Class<?> type) {
+    return PROPERTIES.computeIfAbsent(type, t -> {
+      Map<String, PropertyDescriptor> properties = new HashMap<>();
+
+      for (PropertyDescriptor descriptor : BeanUtils.getPropertyDescriptors(t)) {
+        if (descriptor.getReadMethod() != null && descriptor.getWriteMethod() != null) {
+          properties.put(descriptor.getName(), descriptor);
+        }
+      }
+
+      return Collections.unmodifiableMap(properties);
+    });
+  }
+
+  // JSON names Jackson can deserialize into the type, mapped to their bean property names
+  public static Map<String, String> getJsonProperties(Class<?> type) {
+    return JSON_PROPERTIES.computeIfAbsent(type, t -> {
+      DeserializationConfig config = ObjectMapperUtil.mapper.getDeserializationConfig();
+      BeanDescription description = config.introspect(config.constructType(t));
+
+      Map<String, String> names = new HashMap<>();
+      for (BeanPropertyDefinition property : description.findProperties()) {
+        if (property.getMutator() != null) {
+          names.put(property.getName(), property.getInternalName());
+        }
+      }
+
+      return Collections.unmodifiableMap(names);
+    });
+  }
+
+  // Property names touched by the patch, or null when a key is not in directProperties
+  public static List<String> getPatchProperties(Map<String, Object> patch, Class<?> type,
+      Collection<String> directProperties) {
+    Map<String, String> jsonProperties = getJsonProperties(type);
+
+    List<String> names = new ArrayList<>(patch.size());
+    for (String key : patch.keySet()) {
+      String name = jsonProperties.get(key);
+      if (name == null) {
+        continue;
+      }
+
+      if (!directProperties.contains(name)) {
+        return null;
+      }
+
+      names.add(name);
+    }
+
+    return names;
+  }
+
+  public static void copy(Object source, Class<?> sourceType, Object target, Class<?> targetType,
+      Collection<String> names) {
+    Map<String, PropertyDescriptor> sourceProperties = getProperties(sourceType);
+    Map<String, PropertyDescriptor> targetProperties = getProperties(targetType);
+
+    for (String name : names) {
+      Object value = ReflectionUtils.invokeMethod(sourceProperties.get(name).getReadMethod(), source);
+      ReflectionUtils.invokeMethod(targetProperties.get(name).getWriteMethod(), target, value);
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package vn.siplab.medical.education.common.mapper;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.modelmapper.ModelMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public final class ModelMapperRegistry {
+
+  private final static Logger logger = LoggerFactory.getLogger(ModelMapperRegistry.class);
+
+  private static final ModelMapper SHARED_MODEL_MAPPER = ModelMapperUtil.getDefaultModelMapper();
+
+  private static final ModelMapper SHARED_SHALLOW_MODEL_MAPPER = ModelMapperUtil.getDefaultModelMapper(false);
+
+  private static final Map<List<Object>, CompletableFuture<Void>> WARM_UPS = new ConcurrentHashMap<>();
+
+  private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+  private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+      Runtime.getRuntime().availableProcessors(), runnable -> {
+        Thread thread = new Thread(runnable, "model-mapper-warm-up-" + THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  // One ModelMapper for every service that keeps the default configuration; TypeMaps are keyed
+  // by (source, destination) inside it, so each Entity/DTO pair is validated once
+  public static ModelMapper getSharedModelMapper() {
+    return SHARED_MODEL_MAPPER;
+  }
+
+  public static ModelMapper getSharedModelMapper(boolean deepCopy) {
+    return deepCopy ? SHARED_MODEL_MAPPER : SHARED_SHALLOW_MODEL_MAPPER;
+  }
+
+  public static CompletableFuture<Void> warmUp(ModelMapper modelMapper, Class<?> entityClass,
+      Class<?> dtoClass, String name, Runnable task) {
+    if (modelMapper != SHARED_MODEL_MAPPER && modelMapper != SHARED_SHALLOW_MODEL_MAPPER) {
+      return submit(entityClass, dtoClass, name, task);
+    }
+
+    return WARM_UPS.computeIfAbsent(Arrays.asList(modelMapper, entityClass, dtoClass),
+        key -> submit(entityClass, dtoClass, name, task));
+  }
+
+  private static CompletableFuture<Void> submit(Class<?> entityClass, Class<?> dtoClass, String name,
+      Runnable task) {
+    Timer timer = Timer.builder("common.mapper.warmup")
+        .tag("service", name)
+        .tag("entity", entityClass.getSimpleName())
+        .tag("dto", dtoClass.getSimpleName())
+        .register(Metrics.globalRegistry);
+
+    return CompletableFuture.runAsync(() -> {
+      long startTime = System.nanoTime();
+
+      try {
+        task.run();
+      } catch (RuntimeException e) {
+        logger.error("Warm-up " + name + " failed: " + e.getMessage(), e);
+        throw e;
+      } finally {
+        long duration = System.nanoTime() - startTime;
+        timer.record(duration, TimeUnit.NANOSECONDS);
+
+        if (logger.isTraceEnabled()) {
+          logger.trace("Warm-up " + name + ": " + duration / 1000000 + " ms");
+        }
+      }
+    }, EXECUTOR);
+  }
+}
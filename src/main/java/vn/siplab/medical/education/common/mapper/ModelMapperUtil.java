@@ -1,23 +1,38 @@
 package vn.siplab.medical.education.common.mapper;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.poi.util.StringUtil;
+import org.modelmapper.Condition;
 import org.modelmapper.ModelMapper;
 import org.modelmapper.convention.MatchingStrategies;
 import org.modelmapper.internal.InheritingConfiguration;
 import org.modelmapper.internal.converter.AssignableConverter;
 import org.modelmapper.internal.util.MappingContextHelper;
+import org.modelmapper.spi.Mapping;
+import org.modelmapper.spi.MappingContext;
 import vn.siplab.medical.education.common.dao.model.Entity;
 import vn.siplab.medical.education.common.dto.DTO;
 
 public class ModelMapperUtil{
+    // Weakly keyed by mapping identity, so the answers go with the type maps of a dropped mapper
+    private static final Cache<Mapping, Map<Class<?>, Boolean>> CONDITIONS = Caffeine.newBuilder().weakKeys().build();
+
     public static ModelMapper getDefaultModelMapper() {
+      return getDefaultModelMapper(true);
+    }
+
+    // Without deep copy, same-typed values are assigned by reference; only for immutable graphs
+    public static ModelMapper getDefaultModelMapper(boolean deepCopy) {
       ModelMapper modelMapper = new ModelMapper();
 
       InheritingConfiguration configuration = (InheritingConfiguration) modelMapper.getConfiguration();
 
       configuration.setMatchingStrategy(MatchingStrategies.STRICT);
-      configuration.setDeepCopyEnabled(true);
+      configuration.setDeepCopyEnabled(deepCopy);
       configuration.setFullTypeMatchingRequired(true);
 
       configuration.converterStore.getConverters().removeIf(x ->
@@ -27,27 +42,32 @@ public class ModelMapperUtil{
       configuration.converterStore.addConverter(new AssignableConverter());
       configuration.converterStore.addConverter(new CollectionConverter());
 
-      configuration.setPropertyCondition(context -> {
+      configuration.setPropertyCondition(PROPERTY_CONDITION);
+
+      return modelMapper;
+    }
 
-        Class<?> initialType = context.getMapping().getLastDestinationProperty().getInitialType();
+    // The answer only depends on the mapping and its destination type, so it is computed once
+    public static final Condition<Object, Object> PROPERTY_CONDITION = context ->
+        CONDITIONS.get(context.getMapping(), mapping -> new ConcurrentHashMap<>())
+            .computeIfAbsent(context.getDestinationType(), destinationType -> isMapped(context));
 
-        if (DTO.class.isAssignableFrom(initialType)
-            && StringUtil.countMatches(context.getMapping().getPath(), '.') > 1) {
-          return false;
-        }
+    private static boolean isMapped(MappingContext<Object, Object> context) {
+      Class<?> initialType = context.getMapping().getLastDestinationProperty().getInitialType();
 
-        Class<?> destinationType = context.getDestinationType();
-        if (Collection.class.isAssignableFrom(destinationType)) {
-          Class<?> elementType = MappingContextHelper.resolveDestinationGenericType(context);
-          return !Entity.class.isAssignableFrom(elementType)
-              && !DTO.class.isAssignableFrom(elementType)
-              && !elementType.isAssignableFrom(Object.class);
-        }
+      if (DTO.class.isAssignableFrom(initialType)
+          && StringUtil.countMatches(context.getMapping().getPath(), '.') > 1) {
+        return false;
+      }
 
-        return true;
-      });
+      Class<?> destinationType = context.getDestinationType();
+      if (Collection.class.isAssignableFrom(destinationType)) {
+        Class<?> elementType = MappingContextHelper.resolveDestinationGenericType(context);
+        return !Entity.class.isAssignableFrom(elementType)
+            && !DTO.class.isAssignableFrom(elementType)
+            && !elementType.isAssignableFrom(Object.class);
+      }
 
-      return modelMapper;
+      return true;
     }
-
 }
@@ -0,0 +1,99 @@
+package vn.siplab.medical.education.common.mapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+import org.springframework.context.i18n.LocaleContext;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.data.util.CastUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+// Maps a list on a dedicated work-stealing pool, keeping the order of the source list and the
+// caller's security and locale context on the workers
+public final class ParallelMapper {
+
+  private static final int MIN_SPLIT_SIZE = 16;
+
+  private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+      pool -> {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("dto-mapping-" + thread.getPoolIndex());
+        thread.setDaemon(true);
+        return thread;
+      }, null, false);
+
+  public static <T, R> List<R> map(List<T> source, Function<? super T, ? extends R> mapper) {
+    Object[] result = new Object[source.size()];
+
+    MapAction<T> action = new MapAction<>(source, mapper, result, 0, result.length,
+        SecurityContextHolder.getContext(), LocaleContextHolder.getLocaleContext(),
+        Math.max(MIN_SPLIT_SIZE, result.length / (POOL.getParallelism() * 4)));
+
+    POOL.invoke(action);
+
+    List<R> list = CastUtils.cast(Arrays.asList(result));
+    return new ArrayList<>(list);
+  }
+
+  private static final class MapAction<T> extends RecursiveAction {
+
+    private final List<T> source;
+
+    private final Function<? super T, ?> mapper;
+
+    private final Object[] result;
+
+    private final int from;
+
+    private final int to;
+
+    private final SecurityContext securityContext;
+
+    private final LocaleContext localeContext;
+
+    private final int splitSize;
+
+    private MapAction(List<T> source, Function<? super T, ?> mapper, Object[] result, int from, int to,
+        SecurityContext securityContext, LocaleContext localeContext, int splitSize) {
+      this.source = source;
+      this.mapper = mapper;
+      this.result = result;
+      this.from = from;
+      this.to = to;
+      this.securityContext = securityContext;
+      this.localeContext = localeContext;
+      this.splitSize = splitSize;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > splitSize) {
+        int middle = (from + to) >>> 1;
+
+        invokeAll(new MapAction<>(source, mapper, result, from, middle, securityContext, localeContext, splitSize),
+            new MapAction<>(source, mapper, result, middle, to, securityContext, localeContext, splitSize));
+        return;
+      }
+
+      SecurityContext previousSecurityContext = SecurityContextHolder.getContext();
+      LocaleContext previousLocaleContext = LocaleContextHolder.getLocaleContext();
+
+      SecurityContextHolder.setContext(securityContext);
+      LocaleContextHolder.setLocaleContext(localeContext);
+
+      try {
+        for (int i = from; i < to; i++) {
+          result[i] = mapper.apply(source.get(i));
+        }
+      } finally {
+        SecurityContextHolder.setContext(previousSecurityContext);
+        LocaleContextHolder.setLocaleContext(previousLocaleContext);
+      }
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package vn.siplab.medical.education.common.mapper;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.MonthDay;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.Period;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+
+public final class TypeUtil {
+
+  private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<>(Arrays.asList(
+      String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class,
+      Long.class, Float.class, Double.class, BigDecimal.class, BigInteger.class, UUID.class,
+      Locale.class, Class.class, Instant.class, LocalDate.class, LocalDateTime.class,
+      LocalTime.class, ZonedDateTime.class, OffsetDateTime.class, OffsetTime.class,
+      Duration.class, Period.class, Year.class, YearMonth.class, MonthDay.class));
+
+  public static boolean isImmutable(Class<?> type) {
+    if (type == null) {
+      return false;
+    }
+
+    return type.isPrimitive() || Enum.class.isAssignableFrom(type)
+        || ZoneId.class.isAssignableFrom(type) || IMMUTABLE_TYPES.contains(type);
+  }
+}
@@ -0,0 +1,54 @@
+package vn.siplab.medical.education.common.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Timers of one service, tagged by entity and operation; created once per operation
+public final class ServiceMetrics {
+
+  public static final String TIMER_NAME = "common.service";
+
+  private final MeterRegistry registry;
+
+  private final String entity;
+
+  private final boolean histogram;
+
+  private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+  public ServiceMetrics(MeterRegistry registry, String entity) {
+    this(registry, entity, false);
+  }
+
+  // Percentile histograms add dozens of buckets per timer, one timer per entity and operation,
+  // so they are opt-in
+  public ServiceMetrics(MeterRegistry registry, String entity, boolean histogram) {
+    this.registry = registry;
+    this.entity = entity;
+    this.histogram = histogram;
+  }
+
+  public long start() {
+    return System.nanoTime();
+  }
+
+  public void stop(String operation, long startTime) {
+    Timer timer = timers.get(operation);
+    if (timer == null) {
+      timer = timers.computeIfAbsent(operation, this::createTimer);
+    }
+
+    timer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+  }
+
+  private Timer createTimer(String operation) {
+    return Timer.builder(TIMER_NAME)
+        .tag("entity", entity)
+        .tag("operation", operation)
+        .publishPercentileHistogram(histogram)
+        .register(registry);
+  }
+}
@@ -1,20 +1,41 @@
 package vn.siplab.medical.education.common.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.ParameterizedType;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiFunction;
+import javax.annotation.PostConstruct;
 import org.modelmapper.ModelMapper;
+import org.modelmapper.TypeMap;
+import org.modelmapper.spi.Mapping;
+import org.modelmapper.spi.PropertyInfo;
+import org.modelmapper.spi.PropertyMapping;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.util.CastUtils;
 import vn.siplab.medical.education.common.dao.model.BaseEntity;
 import vn.siplab.medical.education.common.dto.BaseDTO;
+import vn.siplab.medical.education.common.mapper.AccessorMapper;
+import vn.siplab.medical.education.common.mapper.ModelMapperRegistry;
 import vn.siplab.medical.education.common.mapper.ModelMapperUtil;
+import vn.siplab.medical.education.common.mapper.ParallelMapper;
+import vn.siplab.medical.education.common.mapper.TypeUtil;
+import vn.siplab.medical.education.common.metrics.ServiceMetrics;
 import vn.siplab.medical.education.common.msg.Msg;
 
 public abstract class AbstractBaseMapService<Entity extends BaseEntity, DTO extends BaseDTO> extends
-    AbstractBaseEnvService {
+    AbstractBaseEnvService implements SmartInitializingSingleton {
 
   private final Class<Entity> entityClass;
 
@@ -22,33 +43,199 @@ public abstract class AbstractBaseMapService<Entity extends BaseEntity, DTO exte
 
   private final ModelMapper modelMapper;
 
-  public AbstractBaseMapService() {
-    long startTime = 0;
-    if (getLogger().isTraceEnabled()) {
-      startTime = System.currentTimeMillis();
-    }
+  private volatile CompletableFuture<Void> warmUp;
+
+  private volatile boolean initialized;
+
+  private AccessorMapper<Entity, DTO> dtoMapper;
+
+  private AccessorMapper<DTO, Entity> entityMapper;
+
+  private volatile Set<String> directProperties;
+
+  private final boolean specificMapToEntityOverridden;
+
+  @Autowired(required = false)
+  private MeterRegistry meterRegistry;
 
+  @Value("${common.metrics.enabled:true}")
+  private boolean metricsEnabled;
+
+  @Value("${common.metrics.histogram:false}")
+  private boolean metricsHistogram;
+
+  private ServiceMetrics metrics;
+
+  public AbstractBaseMapService() {
     entityClass = CastUtils.cast(((ParameterizedType) getClass().getGenericSuperclass()).getActualTypeArguments()[0]);
     dtoClass = CastUtils.cast(((ParameterizedType) getClass().getGenericSuperclass()).getActualTypeArguments()[1]);
-    modelMapper = ModelMapperUtil.getDefaultModelMapper();
-    configModelMapper(modelMapper);
 
-    getModelMapper().map(getDTO(), getEntity());
-    getModelMapper().map(getEntity(), getDTO());
+    specificMapToEntityOverridden = isOverridden("specificMapToEntity", BaseDTO.class, BaseEntity.class);
+
+    if (isOverridden("configModelMapper", ModelMapper.class)) {
+      modelMapper = ModelMapperUtil.getDefaultModelMapper(isDeepCopyEnabled());
+      configModelMapper(modelMapper);
+    } else {
+      modelMapper = ModelMapperRegistry.getSharedModelMapper(isDeepCopyEnabled());
+    }
+  }
+
+  private boolean isOverridden(String name, Class<?>... parameterTypes) {
+    return isOverridden(AbstractBaseMapService.class, name, parameterTypes);
+  }
+
+  // Whether a subclass of base redeclares the method; generic overrides are found through their
+  // erased bridge methods
+  final protected boolean isOverridden(Class<?> base, String name, Class<?>... parameterTypes) {
+    for (Class<?> type = getClass(); type != base && type != null; type = type.getSuperclass()) {
+      try {
+        type.getDeclaredMethod(name, parameterTypes);
+        return true;
+      } catch (NoSuchMethodException e) {
+        // check the next superclass
+      }
+    }
+
+    return false;
+  }
+
+  // Starts the TypeMap warm-up once the service is fully constructed, so getDTO() and getEntity()
+  // overrides run against their own initialized fields
+  @PostConstruct
+  private void startWarmUp() {
+    warmUp = ModelMapperRegistry.warmUp(modelMapper, entityClass, dtoClass, getClass().getSimpleName(),
+        () -> {
+          modelMapper.map(getDTO(), getEntity());
+          modelMapper.map(getEntity(), getDTO());
+        });
+  }
+
+  // Every singleton service has started its warm-up by now, so they have run in parallel; a
+  // failed one fails the startup instead of the first request
+  @Override
+  public void afterSingletonsInstantiated() {
+    try {
+      init();
+    } catch (CompletionException e) {
+      throw new IllegalStateException("Cannot map " + getSimpleName() + " to "
+          + dtoClass.getSimpleName() + ": " + e.getCause().getMessage(), e.getCause());
+    }
+  }
+
+  // Waits for the TypeMap warm-up before the first mapping
+  private void init() {
+    if (initialized) {
+      return;
+    }
+
+    synchronized (this) {
+      if (initialized) {
+        return;
+      }
 
-    if (getLogger().isTraceEnabled()) {
-      getLogger().info("Init: " + (System.currentTimeMillis() - startTime) + " ms");
+      if (warmUp == null) {
+        startWarmUp();
+      }
+
+      warmUp.join();
+
+      if (isAccessorMapperEnabled()) {
+        dtoMapper = AccessorMapper.create(modelMapper, entityClass, dtoClass);
+        entityMapper = AccessorMapper.create(modelMapper, dtoClass, entityClass);
+      }
+
+      initialized = true;
+    }
+  }
+
+  @PostConstruct
+  private void initMetrics() {
+    if (metricsEnabled && meterRegistry != null) {
+      metrics = new ServiceMetrics(meterRegistry, getSimpleName(), metricsHistogram);
     }
   }
 
+  // Timed with the common.service timer, tagged by entity and operation; 0 when disabled
+  final protected long startTimer() {
+    return metrics == null ? 0 : metrics.start();
+  }
+
+  final protected void stopTimer(String operation, long startTime) {
+    if (metrics != null) {
+      metrics.stop(operation, startTime);
+    }
+  }
+
+  // Unless configModelMapper is overridden this is the ModelMapper shared by every service of the
+  // process (see ModelMapperRegistry): only read it. A TypeMap created or changed on it
+  // (createTypeMap, addMappings, ...) applies to every service mapping the same types, so do that
+  // in configModelMapper, which gets a ModelMapper of this service's own.
   final protected ModelMapper getModelMapper() {
     return modelMapper;
   }
 
+  // Called from the constructor, before the subclass fields are initialized
   protected void configModelMapper(ModelMapper modelMapper) {
 
   }
 
+  // Deep copy clones every nested value; turn it off when the Entity/DTO graph only holds
+  // immutable values so same-typed values are assigned as they are
+  protected boolean isDeepCopyEnabled() {
+    return true;
+  }
+
+  // Map with plain getters/setters when the TypeMap only copies immutable values
+  protected boolean isAccessorMapperEnabled() {
+    return true;
+  }
+
+  // DTO properties that ModelMapper copies unchanged onto the same-named entity property
+  final protected Set<String> getDirectProperties() {
+    init();
+
+    if (directProperties == null) {
+      directProperties = findDirectProperties(getModelMapper().getTypeMap(dtoClass, entityClass));
+    }
+
+    return directProperties;
+  }
+
+  private static Set<String> findDirectProperties(TypeMap<?, ?> typeMap) {
+    Set<String> properties = new HashSet<>();
+
+    if (typeMap == null || typeMap.getConverter() != null || typeMap.getPreConverter() != null
+        || typeMap.getPostConverter() != null || typeMap.getCondition() != null
+        || typeMap.getPropertyCondition() != null) {
+      return properties;
+    }
+
+    for (Mapping mapping : typeMap.getMappings()) {
+      if (!(mapping instanceof PropertyMapping) || mapping.isSkipped()
+          || mapping.getConverter() != null || mapping.getCondition() != null
+          || mapping.getProvider() != null) {
+        continue;
+      }
+
+      PropertyMapping propertyMapping = (PropertyMapping) mapping;
+      if (propertyMapping.getSourceProperties().size() != 1
+          || propertyMapping.getDestinationProperties().size() != 1) {
+        continue;
+      }
+
+      PropertyInfo source = propertyMapping.getLastSourceProperty();
+      PropertyInfo destination = propertyMapping.getLastDestinationProperty();
+
+      if (source.getName().equals(destination.getName())
+          && source.getType().equals(destination.getType())
+          && TypeUtil.isImmutable(destination.getType())) {
+        properties.add(destination.getName());
+      }
+    }
+
+    return properties;
+  }
+
   final protected Class<Entity> getEntityClass() {
     return entityClass;
   }
@@ -90,22 +277,19 @@ public abstract class AbstractBaseMapService<Entity extends BaseEntity, DTO exte
       return null;
     }
 
-    long startTime = 0;
-    if (getLogger().isTraceEnabled()) {
-      startTime = System.currentTimeMillis();
-    }
+    init();
+
+    long startTime = startTimer();
 
     if (dto.getActive() == null && dto.getId() != null && dto.getId() > 0) {
       dto.setActive(getActiveById(dto.getId()));
     }
 
-    Entity entity = getModelMapper().map(dto, getEntityClass());
+    Entity entity = entityMapper != null ? entityMapper.map(dto) : getModelMapper().map(dto, getEntityClass());
 
     specificMapToEntity(dto, entity);
 
-    if (getLogger().isTraceEnabled()) {
-      getLogger().info("Method mapToEntity(DTO) execution time: " + (System.currentTimeMillis() - startTime) + " ms");
-    }
+    stopTimer("mapToEntity", startTime);
 
     return entity;
   }
@@ -115,26 +299,33 @@ public abstract class AbstractBaseMapService<Entity extends BaseEntity, DTO exte
       return;
     }
 
-    long startTime = 0;
-    if (getLogger().isTraceEnabled()) {
-      startTime = System.currentTimeMillis();
-    }
+    init();
+
+    long startTime = startTimer();
 
     if (dto.getActive() == null && entity.getActive() != null
         && entity.getId() != null && entity.getId() > 0) {
       dto.setActive(entity.getActive());
     }
 
-    getModelMapper().map(dto, entity);
+    if (entityMapper != null) {
+      entityMapper.map(dto, entity);
+    } else {
+      getModelMapper().map(dto, entity);
+    }
 
     specificMapToEntity(dto, entity);
 
-    if (getLogger().isTraceEnabled()) {
-      getLogger().info("Method mapToEntity(DTO, Entity) execution time: " + (System.currentTimeMillis() - startTime) + " ms");
-    }
+    stopTimer("mapToEntity", startTime);
   }
 
   final protected Set<Entity> mapToEntities(Set<DTO> dtos, Set<Entity> entities) {
+    return diffEntities(dtos, entities).getEntities();
+  }
+
+  // Syncs entities with dtos by id in one pass: matched entities are mapped unless unchanged,
+  // unmatched entities are removed and deleted together, the remaining dtos are added
+  final protected EntityDiff<Entity> diffEntities(Set<DTO> dtos, Set<Entity> entities) {
     if (entities == null) {
       entities = new HashSet<>();
     }
@@ -143,39 +334,68 @@ public abstract class AbstractBaseMapService<Entity extends BaseEntity, DTO exte
       dtos = new HashSet<>();
     }
 
-    long startTime = 0;
-    if (getLogger().isTraceEnabled()) {
-      startTime = System.currentTimeMillis();
+    long startTime = startTimer();
+
+    EntityDiff<Entity> diff = new EntityDiff<>(entities);
+
+    Map<Long, DTO> dtoById = new LinkedHashMap<>(dtos.size() * 2);
+    List<DTO> newDtos = new ArrayList<>();
+
+    for (DTO dto : dtos) {
+      if (dto.getId() == null || dtoById.putIfAbsent(dto.getId(), dto) != null) {
+        newDtos.add(dto);
+      }
     }
 
-    List<Entity> removeEntities = new ArrayList<>();
+    for (Iterator<Entity> iterator = entities.iterator(); iterator.hasNext(); ) {
+      Entity entity = iterator.next();
+      if (entity.getId() == null) {
+        continue;
+      }
 
-    for (Entity entity : entities) {
-      DTO dto = dtos.stream().filter(d -> entity.getId().equals(d.getId())).findFirst().orElse(null);
+      DTO dto = dtoById.remove(entity.getId());
 
       if (dto == null) {
-        removeEntities.add(entity);
-      } else {
+        iterator.remove();
+        diff.getRemoved().add(entity);
+      } else if (!isUnchanged(dto, entity)) {
         mapToEntity(dto, entity);
-
-        dtos.remove(dto);
+        diff.getUpdated().add(entity);
       }
     }
 
-    for (Entity e: removeEntities) {
-      entities.remove(e);
-      deleteEntity(e);
+    newDtos.addAll(dtoById.values());
+
+    if (!diff.getRemoved().isEmpty()) {
+      deleteEntity(new ArrayList<>(diff.getRemoved()));
     }
 
-    for (DTO dto: dtos) {
-      entities.add(mapToEntity(dto));
+    for (DTO dto : newDtos) {
+      Entity entity = mapToEntity(dto);
+
+      entities.add(entity);
+      diff.getAdded().add(entity);
     }
 
-    if (getLogger().isTraceEnabled()) {
-      getLogger().info("Method mapToEntities(Set<DTO>, Set<Entity>) execution time: " + (System.currentTimeMillis() - startTime) + " ms");
+    stopTimer("diffEntities", startTime);
+
+    return diff;
+  }
+
+  // True when mapping the DTO onto the entity would not change it. Only decided for services
+  // mapped by plain accessors without specificMapToEntity, otherwise the entity is always mapped.
+  protected boolean isUnchanged(DTO dto, Entity entity) {
+    init();
+
+    if (entityMapper == null || specificMapToEntityOverridden) {
+      return false;
     }
 
-    return entities;
+    if (dto.getActive() == null && entity.getActive() != null) {
+      dto.setActive(entity.getActive());
+    }
+
+    return entityMapper.matches(dto, entity);
   }
 
   final public DTO mapToDTO(Entity entity) {
@@ -183,45 +403,83 @@ public abstract class AbstractBaseMapService<Entity extends BaseEntity, DTO exte
       return null;
     }
 
-    long startTime = 0;
-    if (getLogger().isTraceEnabled()) {
-      startTime = System.currentTimeMillis();
-    }
+    init();
 
-    DTO dto = getModelMapper().map(entity, getDTOClass());
+    long startTime = startTimer();
 
-    specificMapToDTO(entity, dto);
+    DTO dto = dtoMapper != null ? dtoMapper.map(entity) : getModelMapper().map(entity, getDTOClass());
 
-    if (getLogger().isTraceEnabled()) {
-      getLogger().info("Method mapToDTO(Entity) execution time: " + (System.currentTimeMillis() - startTime) + " ms");
-    }
+    BatchLoader.run(getEntityLoader(), () -> {
+      specificMapToDTO(entity, dto);
+      return null;
+    });
+
+    stopTimer("mapToDTO", startTime);
 
     return dto;
   }
 
+  // Maps on the parallel mapping pool once the list reaches getParallelMappingThreshold()
+  final public List<DTO> mapToDTOs(List<Entity> entities) {
+    int threshold = getParallelMappingThreshold();
+
+    return BatchLoader.run(getEntityLoader(), () -> {
+      if (threshold <= 0 || entities.size() < threshold) {
+        List<DTO> dtos = new ArrayList<>(entities.size());
+        for (Entity entity : entities) {
+          dtos.add(mapToDTO(entity));
+        }
+
+        return dtos;
+      }
+
+      init();
+
+      BatchLoader loader = BatchLoader.current();
+      return ParallelMapper.map(entities, e -> loader == null ? mapToDTO(e) : loader.call(() -> mapToDTO(e)));
+    });
+  }
+
+  // Minimum list size mapped in parallel, 0 disables it. The workers share the caller's
+  // persistence context, which is not thread-safe, so only enable it when mapToDTO reads
+  // nothing lazy (no uninitialized associations or collections).
+  protected int getParallelMappingThreshold() {
+    return 0;
+  }
+
   final protected void mapToDTO(Entity entity, DTO dto) {
     if (entity == null) {
       return;
     }
 
-    long startTime = 0;
-    if (getLogger().isTraceEnabled()) {
-      startTime = System.currentTimeMillis();
-    }
-
-    getModelMapper().map(entity, dto);
+    init();
 
-    specificMapToDTO(entity, dto);
+    long startTime = startTimer();
 
-    if (getLogger().isTraceEnabled()) {
-      getLogger().info("Method mapToDTO(Entity, DTO) execution time: " + (System.currentTimeMillis() - startTime) + " ms");
+    if (dtoMapper != null) {
+      dtoMapper.map(entity, dto);
+    } else {
+      getModelMapper().map(entity, dto);
     }
+
+    BatchLoader.run(getEntityLoader(), () -> {
+      specificMapToDTO(entity, dto);
+      return null;
+    });
+
+    stopTimer("mapToDTO", startTime);
   }
 
   protected void specificMapToDTO(Entity entity, DTO dto) {
 
   }
 
+  // Resolves the batches of getBatchLoader(), which only services with a repository have; null
+  // maps without batching
+  BiFunction<Class<? extends BaseEntity>, Collection<Long>, List<? extends BaseEntity>> getEntityLoader() {
+    return null;
+  }
+
   protected void specificMapToEntity(DTO dto, Entity entity) {
 
   }
@@ -234,4 +492,9 @@ public abstract class AbstractBaseMapService<Entity extends BaseEntity, DTO exte
     return null;
   }
 
+  protected List<Entity> deleteEntity(List<Entity> model) {
+    model.forEach(this::deleteEntity);
+    return model;
+  }
+
 }
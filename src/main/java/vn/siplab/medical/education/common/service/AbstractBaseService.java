@@ -1,30 +1,126 @@
 package vn.siplab.medical.education.common.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import java.beans.PropertyDescriptor;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.i18n.LocaleContext;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.domain.Sort.Order;
 import org.springframework.data.util.CastUtils;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import vn.siplab.medical.education.common.cache.ActiveIdIndex;
+import vn.siplab.medical.education.common.cache.CacheRegion;
+import vn.siplab.medical.education.common.cache.DTOSnapshot;
+import vn.siplab.medical.education.common.cache.EntityCache;
+import vn.siplab.medical.education.common.cache.EntityCacheKeyGenerator;
+import vn.siplab.medical.education.common.cache.EntityCacheResolver;
+import vn.siplab.medical.education.common.cache.EntityCacheUtil;
 import vn.siplab.medical.education.common.dao.model.BaseEntity;
 import vn.siplab.medical.education.common.dao.repositoty.BaseRepository;
 import vn.siplab.medical.education.common.dto.BaseDTO;
+import vn.siplab.medical.education.common.dto.KeysetSlice;
 import vn.siplab.medical.education.common.exception.BaseException;
 import vn.siplab.medical.education.common.exception.DataException;
+import vn.siplab.medical.education.common.mapper.MergePatchUtil;
+import vn.siplab.medical.education.common.until.CollectionUtil;
 import vn.siplab.medical.education.common.until.ObjectMapperUtil;
 
 @Transactional
+@CacheConfig(cacheResolver = EntityCacheResolver.NAME, keyGenerator = EntityCacheKeyGenerator.NAME)
 public abstract class AbstractBaseService<Entity extends BaseEntity, DTO extends BaseDTO, Repository extends BaseRepository<Entity, DTO, Long>> extends
     AbstractBaseMapService<Entity, DTO> implements BaseService<DTO> {
 
+  private static final Logger logger = LoggerFactory.getLogger(AbstractBaseService.class);
+
+  private static final int DEFAULT_PAGE_SIZE = 20;
+
+  private static final int MAXIMUM_MISSING_IDS = 10000;
+
+  private static final int SNAPSHOT_THREADS = 2;
+
+  // Shared by every snapshot service; daemon threads, so it never holds the JVM up
+  private static final ExecutorService SNAPSHOT_EXECUTOR = newSnapshotExecutor();
+
+  private volatile Set<String> projectionProperties;
+
+  private volatile Cache<Long, Boolean> missingIds;
+
+  private volatile ActiveIdIndex activeIdIndex;
+
+  private volatile long activeIdIndexLoadTime;
+
+  private final AtomicBoolean activeIdIndexLoading = new AtomicBoolean();
+
+  private final Object activeIdIndexLock = new Object();
+
+  // Flags committed while the index loads; null when no load is running
+  private List<Map<Long, Boolean>> activeIdIndexJournal;
+
+  private volatile boolean activeIdIndexGauge;
+
+  private final Map<String, VersionedSnapshot<DTO>> snapshots = new ConcurrentHashMap<>();
+
+  // Moved by the writes of this instance once they commit
+  private final AtomicLong snapshotGeneration = new AtomicLong();
+
+  private final AtomicLong snapshotSequence = new AtomicLong();
+
+  private final Set<String> snapshotBuilds = ConcurrentHashMap.newKeySet();
+
+  @Autowired
+  private ObjectProvider<CacheManager> cacheManager;
+
+  @Autowired
+  private ObjectProvider<PlatformTransactionManager> transactionManager;
+
   protected abstract Repository getRepository();
 
 
@@ -33,15 +129,262 @@ public abstract class AbstractBaseService<Entity extends BaseEntity, DTO extends
   }
 
   protected Entity getById(Long id) {
-    return getRepository().findById(id).orElseThrow(
-        () -> new DataException.NotFoundEntityById(id, getName()));
+    if (isMissing(id)) {
+      throw notFound(id);
+    }
+
+    return getRepository().findById(id).orElseThrow(() -> notFound(id));
+  }
+
+  protected Entity getById(Long id, String graph) {
+    if (isMissing(id)) {
+      throw notFound(id);
+    }
+
+    return getRepository().findById(id, graph).orElseThrow(() -> notFound(id));
+  }
+
+  // How long an id found missing is answered without a query by getById, findById and
+  // existsById. saveEntity forgets the ids it saves, again once its transaction commits; other
+  // instances see an insert once the duration has passed. null disables the negative cache.
+  protected Duration getMissingIdTimeToLive() {
+    return null;
+  }
+
+  private Cache<Long, Boolean> getMissingIds() {
+    if (missingIds == null) {
+      Duration timeToLive = getMissingIdTimeToLive();
+      if (timeToLive == null) {
+        return null;
+      }
+
+      missingIds = Caffeine.newBuilder().expireAfterWrite(timeToLive).maximumSize(MAXIMUM_MISSING_IDS).build();
+    }
+
+    return missingIds;
+  }
+
+  private boolean isMissing(Long id) {
+    Cache<Long, Boolean> missing = getMissingIds();
+    return missing != null && id != null && missing.getIfPresent(id) != null;
+  }
+
+  private boolean markMissing(Long id) {
+    Cache<Long, Boolean> missing = getMissingIds();
+    if (missing == null || id == null) {
+      return false;
+    }
+
+    missing.put(id, Boolean.TRUE);
+    return true;
+  }
+
+  // With the negative cache on, misses are frequent and expected, so they are thrown without a
+  // stack trace
+  private DataException.NotFoundEntityById notFound(Long id) {
+    return new DataException.NotFoundEntityById(id, getName(), !markMissing(id));
+  }
+
+  // Forgotten at once for the saving transaction, and again after its commit, as a concurrent
+  // read may have found the id missing in between
+  private void forgetMissing(Collection<Long> ids) {
+    Cache<Long, Boolean> missing = getMissingIds();
+    if (missing == null) {
+      return;
+    }
+
+    List<Long> savedIds = ids.stream().filter(Objects::nonNull).collect(Collectors.toList());
+    missing.invalidateAll(savedIds);
+
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          missing.invalidateAll(savedIds);
+        }
+      });
+    }
+  }
+
+  protected Map<Long, Entity> getByIds(Collection<Long> ids) {
+    List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+    Map<Long, Entity> entities = new HashMap<>(distinctIds.size() * 2);
+
+    for (List<Long> chunk : CollectionUtil.partition(distinctIds, BaseRepository.MAX_IN_PARAMETERS)) {
+      getRepository().findAllById(chunk).forEach(e -> entities.put(e.getId(), e));
+    }
+
+    for (Long id : distinctIds) {
+      if (!entities.containsKey(id)) {
+        throw notFound(id);
+      }
+    }
+
+    return entities;
+  }
+
+  // Inside specificMapToDTO, related entities requested here are loaded together once the
+  // current mapToDTO/mapToDTOs call has mapped all its rows, then passed to the callbacks
+  final protected BatchLoader getBatchLoader() {
+    BatchLoader loader = BatchLoader.current();
+
+    return loader != null ? loader : new BatchLoader(this::loadEntities, true);
   }
 
+  @Override
+  final BiFunction<Class<? extends BaseEntity>, Collection<Long>, List<? extends BaseEntity>> getEntityLoader() {
+    return this::loadEntities;
+  }
+
+  // Loads the entities requested through getBatchLoader()
+  protected List<? extends BaseEntity> loadEntities(Class<? extends BaseEntity> type, Collection<Long> ids) {
+    List<BaseEntity> entities = new ArrayList<>(ids.size());
+
+    for (List<Long> chunk : CollectionUtil.partition(ids, BaseRepository.MAX_IN_PARAMETERS)) {
+      entities.addAll(getRepository().findAllById(type, chunk));
+    }
+
+    return entities;
+  }
+
+  // Always read from the database: mapToEntity writes this flag back onto the row, so it must not
+  // come from the active index, which may be behind the other instances
   @Override
   protected Boolean getActiveById(Long id) {
     return getRepository().getActiveById(id);
   }
 
+  // Active flag for reads, from the active index when enabled; null when deleted or unknown
+  protected Boolean isActive(Long id) {
+    ActiveIdIndex index = getActiveIdIndex();
+    Boolean active = index == null ? null : index.get(id);
+
+    return active != null ? active : getActiveById(id);
+  }
+
+  // The ids that are active; deleted or unknown ids are left out
+  protected List<Long> filterActive(Collection<Long> ids) {
+    return ids.stream().filter(id -> Boolean.TRUE.equals(isActive(id))).collect(Collectors.toList());
+  }
+
+  // Answer isActive and filterActive from an in-memory bitmap of the active flag of every id,
+  // kept current by this instance's saveEntity and deleteEntity once they commit. Writes of other
+  // instances are only seen when the index is read again, see getActiveIndexTimeToLive().
+  protected boolean isActiveIndexEnabled() {
+    return false;
+  }
+
+  // How long the active index is used before it is read again from the database; null never
+  // reloads it
+  protected Duration getActiveIndexTimeToLive() {
+    return Duration.ofMinutes(5);
+  }
+
+  // One caller (re)loads the index; the others keep the expired one, or read the database while
+  // there is none yet
+  private ActiveIdIndex getActiveIdIndex() {
+    if (!isActiveIndexEnabled()) {
+      return null;
+    }
+
+    ActiveIdIndex index = activeIdIndex;
+    if (index != null && !isActiveIdIndexExpired()) {
+      return index;
+    }
+
+    if (!activeIdIndexLoading.compareAndSet(false, true)) {
+      return index;
+    }
+
+    try {
+      return loadActiveIdIndex();
+    } finally {
+      activeIdIndexLoading.set(false);
+    }
+  }
+
+  private boolean isActiveIdIndexExpired() {
+    Duration timeToLive = getActiveIndexTimeToLive();
+    return timeToLive != null && System.nanoTime() - activeIdIndexLoadTime > timeToLive.toNanos();
+  }
+
+  // Commits made while the ids are streamed are journaled and replayed onto the new index before
+  // it is published, as the stream may have read their rows before or after the change
+  private ActiveIdIndex loadActiveIdIndex() {
+    synchronized (activeIdIndexLock) {
+      activeIdIndexJournal = new ArrayList<>();
+    }
+
+    ActiveIdIndex index = new ActiveIdIndex();
+    long loadTime = System.nanoTime();
+
+    try {
+      try (Stream<Long> ids = getRepository().streamIdsByActive(true)) {
+        index.load(ids, true);
+      }
+      try (Stream<Long> ids = getRepository().streamIdsByActive(false)) {
+        index.load(ids, false);
+      }
+    } catch (RuntimeException e) {
+      synchronized (activeIdIndexLock) {
+        activeIdIndexJournal = null;
+      }
+
+      throw e;
+    }
+
+    synchronized (activeIdIndexLock) {
+      activeIdIndexJournal.forEach(flags -> flags.forEach(index::put));
+      activeIdIndexJournal = null;
+      activeIdIndex = index;
+      activeIdIndexLoadTime = loadTime;
+    }
+
+    if (!activeIdIndexGauge) {
+      activeIdIndexGauge = true;
+      Metrics.gauge("common.service.active-index.bytes", Tags.of("entity", getSimpleName()), this,
+          service -> service.activeIdIndex == null ? 0 : service.activeIdIndex.getSizeInBytes());
+    }
+
+    return index;
+  }
+
+  // Flags are copied now and applied after commit, so a rollback leaves the index as it was
+  private void updateActiveIdIndex(Collection<Entity> entities, boolean deleted) {
+    if (!isActiveIndexEnabled()) {
+      return;
+    }
+
+    Map<Long, Boolean> flags = new HashMap<>(entities.size() * 2);
+    entities.stream().filter(entity -> entity.getId() != null)
+        .forEach(entity -> flags.put(entity.getId(), deleted ? null : entity.getActive()));
+
+    Runnable update = () -> {
+      synchronized (activeIdIndexLock) {
+        if (activeIdIndexJournal != null) {
+          activeIdIndexJournal.add(flags);
+        }
+
+        ActiveIdIndex index = activeIdIndex;
+        if (index != null) {
+          flags.forEach(index::put);
+        }
+      }
+    };
+
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      update.run();
+      return;
+    }
+
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        update.run();
+      }
+    });
+  }
+
   @Override
   public DTO save(DTO dto) {
     if (dto == null) {
@@ -67,22 +410,57 @@ public abstract class AbstractBaseService<Entity extends BaseEntity, DTO extends
       throw new DataException.NotExistsData();
     }
 
-    List<Entity> entities = new ArrayList<>();
+    int batchSize = getBatchSize();
+    if (batchSize <= 0) {
+      return save(getEntities(dtos), dtos);
+    }
+
+    Integer jdbcBatchSize = getRepository().getJdbcBatchSize();
+    getRepository().setJdbcBatchSize(batchSize);
+
+    try {
+      List<DTO> result = new ArrayList<>(dtos.size());
 
-    dtos.forEach(dto -> {
+      for (List<DTO> partition : CollectionUtil.partition(dtos, batchSize)) {
+        List<DTO> chunk = new ArrayList<>(partition);
+
+        result.addAll(save(getEntities(chunk), chunk));
+
+        getRepository().flush();
+        getRepository().clear();
+      }
+
+      return result;
+    } finally {
+      getRepository().setJdbcBatchSize(jdbcBatchSize);
+    }
+  }
+
+  private List<Entity> getEntities(List<DTO> dtos) {
+    Map<Long, Entity> models = getByIds(dtos.stream().map(BaseDTO::getId)
+        .filter(Objects::nonNull).collect(Collectors.toList()));
+
+    List<Entity> entities = new ArrayList<>(dtos.size());
+
+    for (DTO dto : dtos) {
       Entity model;
       if (dto.getId() != null) {
-        model = getById(dto.getId());
+        model = models.get(dto.getId());
         mapToEntity(dto, model);
         model.setId(dto.getId());
       } else {
         model = mapToEntity(dto);
       }
       entities.add(model);
-    });
+    }
 
+    return entities;
+  }
 
-    return save(entities, dtos);
+  // Rows per JDBC batch for save(List); the persistence context is flushed and cleared after
+  // each chunk. 0 keeps the whole list in one persistence context.
+  protected int getBatchSize() {
+    return 0;
   }
 
   @Override
@@ -117,6 +495,19 @@ public abstract class AbstractBaseService<Entity extends BaseEntity, DTO extends
     Entity model = getById(id);
     model.setMapAllProperties(true);
 
+    List<String> properties = MergePatchUtil.getPatchProperties(map, getDTOClass(), getDirectProperties());
+    if (properties != null) {
+      properties.remove("id");
+
+      DTO patch = ObjectMapperUtil.convertValue(map, getDTOClass());
+      MergePatchUtil.copy(patch, getDTOClass(), model, getEntityClass(), properties);
+
+      DTO dto = mapToDTO(model);
+      specificMapToEntity(dto, model);
+
+      return save(model, dto);
+    }
+
     map = mergeMap(map, ObjectMapperUtil.convertValue(mapToDTO(model)));
 
     DTO dto = ObjectMapperUtil.convertValue(map, getDTOClass());
@@ -142,11 +533,15 @@ public abstract class AbstractBaseService<Entity extends BaseEntity, DTO extends
   }
 
   protected DTO save(Entity model, DTO dto) {
+    long startTime = startTimer();
     model = beforeSave(model, dto);
+    stopTimer("beforeSave", startTime);
 
     model = saveEntity(model);
 
+    startTime = startTimer();
     dto = afterSave(model, dto);
+    stopTimer("afterSave", startTime);
 
     mapToDTO(model, dto);
 
@@ -154,9 +549,13 @@ public abstract class AbstractBaseService<Entity extends BaseEntity, DTO extends
   }
 
   protected List<DTO> save(List<Entity> entities, List<DTO> dtos) {
+    long startTime = startTimer();
     entities = beforeSave(entities, dtos);
+    stopTimer("beforeSave", startTime);
 
+    startTime = startTimer();
     entities = saveEntity(entities);
+    stopTimer("saveEntity", startTime);
 
     int size = entities.size();
     for (int i = 0; i < size; i++) {
@@ -167,7 +566,9 @@ public abstract class AbstractBaseService<Entity extends BaseEntity, DTO extends
       }
     }
 
+    startTime = startTimer();
     dtos = afterSave(entities, dtos);
+    stopTimer("afterSave", startTime);
 
     for (int i = 0; i < size; i++) {
       DTO dto = dtos.get(i);
@@ -182,23 +583,26 @@ public abstract class AbstractBaseService<Entity extends BaseEntity, DTO extends
   }
 
   protected Entity saveEntity(Entity model) {
-    long startTime = 0;
-    if (getLogger().isTraceEnabled()) {
-      startTime = System.currentTimeMillis();
-    }
+    long startTime = startTimer();
 
     model =  getRepository().save(model);
     model.setMapAllProperties(true);
+    forgetMissing(Collections.singletonList(model.getId()));
+    updateActiveIdIndex(Collections.singletonList(model), false);
+    invalidateSnapshots();
 
-    if (getLogger().isTraceEnabled()) {
-      getLogger().info("Method saveEntity(Entity) execution time: " + (System.currentTimeMillis() - startTime) + " ms");
-    }
+    stopTimer("saveEntity", startTime);
 
     return model;
   }
 
   protected List<Entity> saveEntity(List<Entity> model) {
-    return getRepository().saveAll(model);
+    List<Entity> entities = getRepository().saveAll(model);
+    forgetMissing(entities.stream().map(BaseEntity::getId).collect(Collectors.toList()));
+    updateActiveIdIndex(entities, false);
+    invalidateSnapshots();
+
+    return entities;
   }
 
   @Override
@@ -208,32 +612,39 @@ public abstract class AbstractBaseService<Entity extends BaseEntity, DTO extends
 
     Entity model = getById(id);
 
+    long startTime = startTimer();
     model = beforeDelete(model);
+    stopTimer("beforeDelete", startTime);
 
+    startTime = startTimer();
     deleteEntity(model);
+    stopTimer("deleteEntity", startTime);
 
+    startTime = startTimer();
     afterDelete(model);
+    stopTimer("afterDelete", startTime);
   }
 
   @Override
   public List<DTO> delete(List<Long> ids) {
-    List<Entity> entities = ids.stream().map(this::getById).collect(Collectors.toList());
+    Map<Long, Entity> models = getByIds(ids);
+
+    List<Entity> entities = ids.stream().map(models::get).collect(Collectors.toList());
     List<DTO> dtos = entities.stream().map(this::mapToDTO).collect(Collectors.toList());
 
-    entities.forEach(e -> {
-      try {
-        validateForeignKeyConstraint(e.getId());
-      } catch (BaseException ex) {
-        e.setCode(ex.getCode());
-        e.setMessage(ex.getMessage());
-      }
-    });
+    validateForeignKeyConstraint(entities);
 
+    long startTime = startTimer();
     entities = beforeDelete(entities);
+    stopTimer("beforeDelete", startTime);
 
+    startTime = startTimer();
     deleteEntity(entities);
+    stopTimer("deleteEntity", startTime);
 
+    startTime = startTimer();
     entities = afterDelete(entities);
+    stopTimer("afterDelete", startTime);
 
     int size = entities.size();
     for (int i = 0; i < size; i++) {
@@ -249,69 +660,465 @@ public abstract class AbstractBaseService<Entity extends BaseEntity, DTO extends
 
   protected Entity deleteEntity(Entity model) {
     getRepository().delete(model);
+    updateActiveIdIndex(Collections.singletonList(model), true);
+    invalidateSnapshots();
     return model;
   }
 
+  // One bulk soft delete, unless a subclass overrides deleteEntity(Entity), e.g. for cascades or
+  // hard deletes: then each entity still goes through the override
+  @Override
   protected List<Entity> deleteEntity(List<Entity> model) {
-    getRepository().deleteAll(model);
+    List<Entity> entities = model.stream().filter(e -> e.getCode() == null || e.getCode() <= 0)
+        .collect(Collectors.toList());
+
+    if (isOverridden(AbstractBaseService.class, "deleteEntity", BaseEntity.class)) {
+      entities.forEach(this::deleteEntity);
+      return model;
+    }
+
+    getRepository().deleteAll(entities);
+    updateActiveIdIndex(entities, true);
+    invalidateSnapshots();
     return model;
   }
 
   @Override
-  @Cacheable
+  @Cacheable(sync = true)
   public DTO findById(Long id) {
     return findById(id, true);
   }
 
+  // The summary view of a snapshot service is decoded from its snapshot while it is current; ids
+  // it does not hold, or an outdated snapshot, are read from the database
   @Override
-  @Cacheable
+  @Cacheable(sync = true, condition = "#a1 || !#root.target.snapshotEnabled")
   public DTO findById(Long id, boolean mapAllProperties) {
     if (id == null || id.compareTo(0L) <= 0) {
       return null;
     }
 
-    Entity model = getById(id);
+    if (!mapAllProperties && isSnapshotEnabled()) {
+      DTOSnapshot<DTO> snapshot = getSnapshot(false);
+      DTO dto = snapshot == null ? null : snapshot.get(id);
+      if (dto != null) {
+        return dto;
+      }
+    }
+
+    if (isMissing(id)) {
+      throw notFound(id);
+    }
+
+    Entity model = !mapAllProperties && isProjectionEnabled()
+        ? getRepository().findProjectionById(id, getProjectionProperties()).orElseThrow(() -> notFound(id))
+        : getById(id, mapAllProperties ? getFullEntityGraph() : getSummaryEntityGraph());
     model.setMapAllProperties(mapAllProperties);
     return mapToDTO(model);
   }
 
+  // Read findById(id, false) as a column projection of the DTO properties, without a managed
+  // entity. Associations are left null, so mapToDTO must not need them when mapAllProperties
+  // is false.
+  protected boolean isProjectionEnabled() {
+    return false;
+  }
+
+  private Set<String> getProjectionProperties() {
+    if (projectionProperties == null) {
+      projectionProperties = Arrays.stream(BeanUtils.getPropertyDescriptors(getDTOClass()))
+          .map(PropertyDescriptor::getName).collect(Collectors.toSet());
+    }
+
+    return projectionProperties;
+  }
+
+  // Named entity graph loaded for views mapped with mapAllProperties false: search, findAll and
+  // findById(id, false). null keeps the mapping defaults (lazy loads per association).
+  protected String getSummaryEntityGraph() {
+    return null;
+  }
+
+  // Named entity graph loaded for views mapped with mapAllProperties true: findById and search2
+  protected String getFullEntityGraph() {
+    return null;
+  }
+
+  // Initializes the graph of already loaded entities with one query per MAX_IN_PARAMETERS ids
+  protected void fetchEntityGraph(List<Entity> entities, String graph) {
+    if (graph == null || entities.isEmpty()) {
+      return;
+    }
+
+    List<Long> ids = entities.stream().map(Entity::getId).collect(Collectors.toList());
+    for (List<Long> chunk : CollectionUtil.partition(ids, BaseRepository.MAX_IN_PARAMETERS)) {
+      getRepository().findAllById(chunk, graph);
+    }
+  }
+
   @Override
-  @Cacheable
+  @Cacheable(sync = true, condition = "!#root.target.snapshotEnabled")
   public List<DTO> findAll() {
-    return getRepository().findAll().stream().map(this::mapToDTO).collect(Collectors.toList());
+    // Decoded once into a list of the caller's own. Until the first snapshot is built the table
+    // is read as without one.
+    if (isSnapshotEnabled()) {
+      DTOSnapshot<DTO> snapshot = getSnapshot();
+      if (snapshot != null) {
+        return new ArrayList<>(snapshot.getAll());
+      }
+    }
+
+    List<Entity> entities = getRepository().findAll();
+    fetchEntityGraph(entities, getSummaryEntityGraph());
+
+    return mapToDTOs(entities);
+  }
+
+  // What findAll() and findById(id) return for every row, mapped from one read of the table
+  // instead of one query per id; for ReferenceDataLoader. details may be null.
+  // A snapshot service gets its snapshot rebuilt from the same read.
+  void findAll(Consumer<? super List<DTO>> summaries, Consumer<? super List<DTO>> details) {
+    long sequence = snapshotSequence.incrementAndGet();
+    long generation = snapshotGeneration.get();
+    Object version = getListVersion();
+    List<Entity> entities = getRepository().findAll();
+
+    fetchEntityGraph(entities, getSummaryEntityGraph());
+    List<DTO> dtos = mapToDTOs(entities);
+    if (isSnapshotEnabled()) {
+      publishSnapshot(getLanguage(), DTOSnapshot.of(getDTOClass(), dtos), version, generation, sequence);
+    }
+    summaries.accept(dtos);
+
+    if (details == null) {
+      return;
+    }
+
+    fetchEntityGraph(entities, getFullEntityGraph());
+    entities.forEach(entity -> entity.setMapAllProperties(true));
+    details.accept(mapToDTOs(entities));
+  }
+
+  // Serve findAll from an off-heap snapshot of the table (see DTOSnapshot) instead of on-heap
+  // DTOs in the list cache. Each findAll decodes every DTO into a new list, which the caller may
+  // change freely, and nothing stays on the heap between calls. Public so the findAll cache
+  // condition can read it.
+  public boolean isSnapshotEnabled() {
+    return false;
+  }
+
+  // Snapshot of the findAll DTOs in the request language. It is tagged with the list version of
+  // the entity's cache (see EntityCache), which writes of every instance move once they commit, so
+  // a snapshot behind another instance's write is outdated too. A missing or outdated snapshot is
+  // rebuilt on the snapshot executor while the outdated one keeps being returned; null until the
+  // first build is done. Without caching only this instance's writes outdate it.
+  final protected DTOSnapshot<DTO> getSnapshot() {
+    return getSnapshot(true);
+  }
+
+  private DTOSnapshot<DTO> getSnapshot(boolean outdated) {
+    String language = getLanguage();
+    VersionedSnapshot<DTO> snapshot = snapshots.get(language);
+    if (snapshot != null && snapshot.generation == snapshotGeneration.get()
+        && snapshot.version.equals(getListVersion())) {
+      return snapshot.dtos;
+    }
+
+    buildSnapshot(language);
+
+    return outdated && snapshot != null ? snapshot.dtos : null;
+  }
+
+  // One build per language at a time. It runs with the caller's locale but neither its
+  // transaction nor its connection: readers never wait on it, and it reads committed rows only.
+  private void buildSnapshot(String language) {
+    if (!snapshotBuilds.add(language)) {
+      return;
+    }
+
+    LocaleContext localeContext = LocaleContextHolder.getLocaleContext();
+
+    try {
+      SNAPSHOT_EXECUTOR.execute(() -> {
+        LocaleContext previous = LocaleContextHolder.getLocaleContext();
+        LocaleContextHolder.setLocaleContext(localeContext);
+
+        try {
+          long sequence = snapshotSequence.incrementAndGet();
+          long generation = snapshotGeneration.get();
+          Object version = getListVersion();
+          publishSnapshot(language, readSnapshot(), version, generation, sequence);
+        } catch (RuntimeException e) {
+          logger.warn("Cannot build the {} snapshot of {}", language, getClass().getSimpleName(), e);
+        } finally {
+          snapshotBuilds.remove(language);
+          LocaleContextHolder.setLocaleContext(previous);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      snapshotBuilds.remove(language);
+    }
+  }
+
+  private DTOSnapshot<DTO> readSnapshot() {
+    PlatformTransactionManager transactionManager = this.transactionManager.getIfAvailable();
+    if (transactionManager == null) {
+      return DTOSnapshot.of(getDTOClass(), readSnapshotDTOs());
+    }
+
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    transactionTemplate.setReadOnly(true);
+
+    return DTOSnapshot.of(getDTOClass(), transactionTemplate.execute(status -> readSnapshotDTOs()));
+  }
+
+  private List<DTO> readSnapshotDTOs() {
+    List<Entity> entities = getRepository().findAll();
+    fetchEntityGraph(entities, getSummaryEntityGraph());
+
+    return mapToDTOs(entities);
+  }
+
+  // The snapshot of the latest started read wins; an older one finishing late is dropped
+  private void publishSnapshot(String language, DTOSnapshot<DTO> dtos, Object version, long generation,
+      long sequence) {
+    snapshots.merge(language, new VersionedSnapshot<>(dtos, version, generation, sequence),
+        (current, built) -> current.sequence > built.sequence ? current : built);
+  }
+
+  private Object getListVersion() {
+    CacheManager cacheManager = this.cacheManager.getIfAvailable();
+    org.springframework.cache.Cache cache = cacheManager == null ? null
+        : cacheManager.getCache(CacheRegion.LIST.getName(EntityCacheUtil.getEntityClass(this)));
+
+    return cache == null ? 0L : EntityCache.getVersion(cache);
+  }
+
+  private static ExecutorService newSnapshotExecutor() {
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("snapshot-");
+    threadFactory.setDaemon(true);
+
+    return Executors.newFixedThreadPool(SNAPSHOT_THREADS, threadFactory);
+  }
+
+  private static final class VersionedSnapshot<DTO extends BaseDTO> {
+
+    private final DTOSnapshot<DTO> dtos;
+
+    private final Object version;
+
+    private final long generation;
+
+    private final long sequence;
+
+    private VersionedSnapshot(DTOSnapshot<DTO> dtos, Object version, long generation, long sequence) {
+      this.dtos = dtos;
+      this.version = version;
+      this.generation = generation;
+      this.sequence = sequence;
+    }
+  }
+
+  private void invalidateSnapshots() {
+    if (!isSnapshotEnabled()) {
+      return;
+    }
+
+    // Outdates the snapshots but keeps them for the reads made while they are rebuilt
+    Runnable invalidate = snapshotGeneration::incrementAndGet;
+
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      invalidate.run();
+      return;
+    }
+
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        invalidate.run();
+      }
+    });
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public void findAll(int chunkSize, Consumer<List<DTO>> consumer) {
+    if (chunkSize <= 0) {
+      chunkSize = BaseRepository.FETCH_SIZE;
+    }
+
+    try (Stream<Entity> stream = getRepository().streamAll()) {
+      List<Entity> chunk = new ArrayList<>(chunkSize);
+
+      for (Iterator<Entity> iterator = stream.iterator(); iterator.hasNext(); ) {
+        chunk.add(iterator.next());
+
+        if (chunk.size() >= chunkSize) {
+          consumer.accept(mapAndDetach(chunk));
+          chunk = new ArrayList<>(chunkSize);
+        }
+      }
+
+      if (!chunk.isEmpty()) {
+        consumer.accept(mapAndDetach(chunk));
+      }
+    }
+  }
+
+  private List<DTO> mapAndDetach(List<Entity> entities) {
+    fetchEntityGraph(entities, getSummaryEntityGraph());
+
+    List<DTO> dtos = mapToDTOs(entities);
+
+    // Clearing also drops the associations loaded while mapping; inside a read-write caller it
+    // would discard pending changes, so only the roots are detached there
+    if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      getRepository().clear();
+    } else {
+      entities.forEach(getRepository()::detach);
+    }
+
+    return dtos;
   }
 
   protected Page<Entity> searchEntity(DTO dto, Pageable pageable) {
     dto.setLanguage(getLanguage());
 
+    long startTime = startTimer();
     dto = beforeSearch(dto);
+    stopTimer("beforeSearch", startTime);
 
-    return getRepository().search(dto, pageable);
+    startTime = startTimer();
+    Page<Entity> page = getRepository().search(dto, pageable);
+    stopTimer("search", startTime);
+
+    return page;
   }
 
   @Override
-  @Cacheable
+  @Cacheable(sync = true)
   public Page<DTO> search(DTO dto, Pageable pageable) {
-    return searchEntity(dto, pageable).map(this::mapToDTO);
+    Page<Entity> page = searchEntity(dto, pageable);
+    fetchEntityGraph(page.getContent(), getSummaryEntityGraph());
+
+    return new PageImpl<>(mapToDTOs(page.getContent()), page.getPageable(), page.getTotalElements());
+  }
+
+  protected Slice<Entity> searchEntitySlice(DTO dto, Pageable pageable) {
+    dto.setLanguage(getLanguage());
+
+    long startTime = startTimer();
+    dto = beforeSearch(dto);
+    stopTimer("beforeSearch", startTime);
+
+    startTime = startTimer();
+    Slice<Entity> slice = getRepository().searchSlice(dto, pageable);
+    stopTimer("searchSlice", startTime);
+
+    return slice;
+  }
+
+  // Without it searchSlice is search without cursors: the default BaseRepository.searchSlice
+  // only filters on active and the id bounds, so the DTO filters would be dropped
+  @Override
+  public KeysetSlice<DTO> searchSlice(DTO dto, Pageable pageable) {
+    if (pageable == null || pageable.isUnpaged()) {
+      pageable = PageRequest.of(0, DEFAULT_PAGE_SIZE);
+    }
+
+    if (!isSearchSliceEnabled()) {
+      if (dto.getCursor() != null) {
+        throw new DataException.InvalidCursor(dto.getCursor());
+      }
+
+      Page<DTO> page = search(dto, pageable);
+      return new KeysetSlice<>(page.getContent(), page.getPageable(), page.hasNext(), null);
+    }
+
+    Sort sort = pageable.getSort();
+    if (sort.isUnsorted()) {
+      sort = Sort.by(Direction.DESC, "id");
+    }
+
+    Order order = sort.getOrderFor("id");
+    boolean keyset = order != null && sort.stream().count() == 1;
+
+    if (dto.getCursor() != null) {
+      if (!keyset) {
+        throw new DataException.InvalidCursor(dto.getCursor());
+      }
+
+      Long id = decodeCursor(dto.getCursor(), order);
+      if (order.isAscending()) {
+        dto.setIdAfter(id);
+      } else {
+        dto.setIdBefore(id);
+      }
+
+      pageable = PageRequest.of(0, pageable.getPageSize(), sort);
+    } else {
+      pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
+    }
+
+    Slice<Entity> slice = searchEntitySlice(dto, pageable);
+    fetchEntityGraph(slice.getContent(), getSummaryEntityGraph());
+
+    String nextCursor = null;
+    if (keyset && slice.hasNext() && slice.hasContent()) {
+      List<Entity> content = slice.getContent();
+      nextCursor = encodeCursor(content.get(content.size() - 1), order);
+    }
+
+    return new KeysetSlice<>(mapToDTOs(slice.getContent()), slice.getPageable(), slice.hasNext(),
+        nextCursor);
+  }
+
+  private String encodeCursor(Entity entity, Order order) {
+    String value = order.getProperty() + "," + order.getDirection().name() + "," + entity.getId();
+
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private Long decodeCursor(String cursor, Order order) {
+    try {
+      String[] values = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+          .split(",");
+
+      if (values.length != 3 || !order.getProperty().equals(values[0])
+          || order.getDirection() != Direction.fromString(values[1])) {
+        throw new DataException.InvalidCursor(cursor);
+      }
+
+      return Long.valueOf(values[2]);
+    } catch (IllegalArgumentException e) {
+      throw new DataException.InvalidCursor(cursor);
+    }
   }
 
   protected Entity searchEntity2(DTO dto, Pageable pageable) {
     dto.setLanguage(getLanguage());
 
+    long startTime = startTimer();
     dto = beforeSearch(dto);
+    stopTimer("beforeSearch", startTime);
 
     Sort sort = null;
     if (pageable != null) {
       sort = pageable.getSort();
     }
 
-    if (sort == null) {
+    if (sort == null || sort.isUnsorted()) {
       sort = Sort.by(Direction.DESC, "id");
     }
 
     pageable = PageRequest.of(0, 1, sort);
 
-    List<Entity> data = getRepository().search(dto, pageable).getContent();
+    startTime = startTimer();
+    List<Entity> data = isSearchFirstEnabled() ? getRepository().searchFirst(dto, pageable)
+        : getRepository().search(dto, pageable).getContent();
+    stopTimer("search2", startTime);
     if (data.isEmpty()) {
       return null;
     }
@@ -319,12 +1126,23 @@ public abstract class AbstractBaseService<Entity extends BaseEntity, DTO extends
     return data.get(0);
   }
 
+  // Enable once the repository redeclares searchFirst with the same filters as search
+  protected boolean isSearchFirstEnabled() {
+    return false;
+  }
+
+  // Enable once the repository redeclares searchSlice with the same filters as search
+  protected boolean isSearchSliceEnabled() {
+    return false;
+  }
+
   @Override
-  @Cacheable
+  @Cacheable(sync = true)
   public DTO search2(DTO dto, Pageable pageable) {
     Entity e = searchEntity2(dto, pageable);
 
     if (e != null) {
+      fetchEntityGraph(Collections.singletonList(e), getFullEntityGraph());
       e.setMapAllProperties(true);
     }
 
@@ -332,14 +1150,23 @@ public abstract class AbstractBaseService<Entity extends BaseEntity, DTO extends
   }
 
   @Override
-  @Cacheable
+  @Cacheable(sync = true)
   public DTO search2(DTO dto) {
     return search2(dto, null);
   }
 
   @Override
   public boolean existsById(Long id) {
-    return getRepository().existsById(id);
+    if (isMissing(id)) {
+      return false;
+    }
+
+    boolean exists = getRepository().existsById(id);
+    if (!exists) {
+      markMissing(id);
+    }
+
+    return exists;
   }
 
   protected Map<String, Object> getByKeys(Map<String, Object> newObj, Map<String, Object> keys) {
@@ -462,6 +1289,42 @@ public abstract class AbstractBaseService<Entity extends BaseEntity, DTO extends
     }
   }
 
+  // A service overriding the per-id check keeps it, with its own code and message, on bulk delete
+  protected void validateForeignKeyConstraint(List<Entity> entities) {
+    if (isOverridden(AbstractBaseService.class, "validateForeignKeyConstraint", Long.class)) {
+      entities.forEach(e -> {
+        try {
+          validateForeignKeyConstraint(e.getId());
+        } catch (BaseException ex) {
+          e.setCode(ex.getCode());
+          e.setMessage(ex.getMessage());
+        }
+      });
+
+      return;
+    }
+
+    List<Long> ids = entities.stream().map(Entity::getId).distinct().collect(Collectors.toList());
+
+    Set<Long> constraintIds = new HashSet<>();
+    for (List<Long> chunk : CollectionUtil.partition(ids, BaseRepository.MAX_IN_PARAMETERS)) {
+      constraintIds.addAll(getRepository().findForeignKeyConstraintIds(chunk));
+    }
+
+    if (constraintIds.isEmpty()) {
+      return;
+    }
+
+    BaseException ex = new DataException.ExistsForeignKeyConstraint();
+
+    entities.forEach(e -> {
+      if (constraintIds.contains(e.getId())) {
+        e.setCode(ex.getCode());
+        e.setMessage(ex.getMessage());
+      }
+    });
+  }
+
   private void putValue(Map<String, Object> obj, Object value, String columnName) {
     if (columnName.contains(".")) {
       String[] names = columnName.split("\\.");
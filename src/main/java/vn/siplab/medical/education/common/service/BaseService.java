@@ -4,10 +4,13 @@ package vn.siplab.medical.education.common.service;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.web.multipart.MultipartFile;
 import vn.siplab.medical.education.common.dto.BaseDTO;
+import vn.siplab.medical.education.common.dto.KeysetSlice;
+import vn.siplab.medical.education.common.until.CollectionUtil;
 
 public interface BaseService<DTO extends BaseDTO> {
 
@@ -29,6 +32,11 @@ public interface BaseService<DTO extends BaseDTO> {
 
   List<DTO> findAll();
 
+  // Implementors that cannot stream get findAll() split into chunks
+  default void findAll(int chunkSize, Consumer<List<DTO>> consumer) {
+    CollectionUtil.partition(findAll(), chunkSize).forEach(consumer);
+  }
+
   boolean existsById(Long id);
 
   default Path importData(MultipartFile file, int sheetNo, int startLineNo) {
@@ -39,6 +47,13 @@ public interface BaseService<DTO extends BaseDTO> {
 
   Page<DTO> search(DTO dto, Pageable pageable);
 
+  // Count-free page. The nextCursor keyset token is only produced for a sort by id alone; other
+  // sorts page by offset. Implementors without a slice query get the search page as a slice.
+  default KeysetSlice<DTO> searchSlice(DTO dto, Pageable pageable) {
+    Page<DTO> page = search(dto, pageable);
+    return new KeysetSlice<>(page.getContent(), page.getPageable(), page.hasNext(), null);
+  }
+
   DTO search2(DTO dto);
 
   DTO search2(DTO dto, Pageable pageable);
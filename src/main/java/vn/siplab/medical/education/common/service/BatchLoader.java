@@ -0,0 +1,110 @@
+package vn.siplab.medical.education.common.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import org.springframework.data.util.CastUtils;
+import vn.siplab.medical.education.common.dao.model.BaseEntity;
+
+// Collects the related entities requested while mapping a page and loads them with one
+// findAllById per type once the page is mapped, then hands each entity to its callbacks
+public final class BatchLoader {
+
+  private static final ThreadLocal<BatchLoader> CURRENT = new ThreadLocal<>();
+
+  private final BiFunction<Class<? extends BaseEntity>, Collection<Long>, List<? extends BaseEntity>> resolver;
+
+  private final boolean immediate;
+
+  private Map<Class<? extends BaseEntity>, Map<Long, List<Consumer<Object>>>> pending = new LinkedHashMap<>();
+
+  BatchLoader(BiFunction<Class<? extends BaseEntity>, Collection<Long>, List<? extends BaseEntity>> resolver,
+      boolean immediate) {
+    this.resolver = resolver;
+    this.immediate = immediate;
+  }
+
+  static BatchLoader current() {
+    return CURRENT.get();
+  }
+
+  // Runs the task in the current batch, or in a new one resolved when the task returns; without a
+  // resolver the task runs unbatched
+  static <R> R run(BiFunction<Class<? extends BaseEntity>, Collection<Long>, List<? extends BaseEntity>> resolver,
+      Supplier<R> task) {
+    if (resolver == null || CURRENT.get() != null) {
+      return task.get();
+    }
+
+    BatchLoader loader = new BatchLoader(resolver, false);
+    R result = loader.call(task);
+    loader.resolve();
+
+    return result;
+  }
+
+  // Runs the task with this loader bound to the calling thread, e.g. on a parallel mapping worker
+  <R> R call(Supplier<R> task) {
+    BatchLoader previous = CURRENT.get();
+    CURRENT.set(this);
+
+    try {
+      return task.get();
+    } finally {
+      if (previous == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(previous);
+      }
+    }
+  }
+
+  // The callback gets the entity, or null when the id is null or does not exist
+  public <T extends BaseEntity> void load(Class<T> type, Long id, Consumer<? super T> callback) {
+    if (id == null) {
+      callback.accept(null);
+      return;
+    }
+
+    synchronized (this) {
+      pending.computeIfAbsent(type, k -> new LinkedHashMap<>())
+          .computeIfAbsent(id, k -> new ArrayList<>()).add(CastUtils.cast(callback));
+    }
+
+    if (immediate) {
+      resolve();
+    }
+  }
+
+  // Callbacks may request more entities; they are loaded in the next round
+  void resolve() {
+    while (true) {
+      Map<Class<? extends BaseEntity>, Map<Long, List<Consumer<Object>>>> batch;
+
+      synchronized (this) {
+        if (pending.isEmpty()) {
+          return;
+        }
+
+        batch = pending;
+        pending = new LinkedHashMap<>();
+      }
+
+      batch.forEach((type, callbacks) -> {
+        Map<Long, BaseEntity> entities = new HashMap<>(callbacks.size() * 2);
+        resolver.apply(type, callbacks.keySet()).forEach(e -> entities.put(e.getId(), e));
+
+        call(() -> {
+          callbacks.forEach((id, consumers) -> consumers.forEach(c -> c.accept(entities.get(id))));
+          return null;
+        });
+      });
+    }
+  }
+}
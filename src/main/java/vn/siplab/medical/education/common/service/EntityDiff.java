@@ -0,0 +1,41 @@
+package vn.siplab.medical.education.common.service;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// Result of syncing a child collection with its DTOs, keyed by id
+public class EntityDiff<Entity> {
+
+  private final Set<Entity> entities;
+
+  private final Set<Entity> added = new LinkedHashSet<>();
+
+  private final Set<Entity> updated = new LinkedHashSet<>();
+
+  private final Set<Entity> removed = new LinkedHashSet<>();
+
+  public EntityDiff(Set<Entity> entities) {
+    this.entities = entities;
+  }
+
+  // The synced collection: unchanged, updated and added entities
+  public Set<Entity> getEntities() {
+    return entities;
+  }
+
+  public Set<Entity> getAdded() {
+    return added;
+  }
+
+  public Set<Entity> getUpdated() {
+    return updated;
+  }
+
+  public Set<Entity> getRemoved() {
+    return removed;
+  }
+
+  public boolean isEmpty() {
+    return added.isEmpty() && updated.isEmpty() && removed.isEmpty();
+  }
+}
@@ -0,0 +1,39 @@
+package vn.siplab.medical.education.common.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import vn.siplab.medical.education.common.cache.EntityCacheKeyGenerator;
+import vn.siplab.medical.education.common.cache.EntityCacheResolver;
+
+@Configuration
+public class ReferenceDataConfiguration {
+
+  // common.reference-data.languages lists the request languages whose findAll is preloaded;
+  // empty loads the default locale only
+  @Bean
+  public ReferenceDataLoader referenceDataLoader(ObjectProvider<ReferenceDataService<?>> services,
+      ObjectProvider<CacheManager> cacheManager, EntityCacheResolver cacheResolver,
+      EntityCacheKeyGenerator keyGenerator, PlatformTransactionManager transactionManager,
+      @Value("${common.reference-data.refresh-interval:10m}") Duration refreshInterval,
+      @Value("${common.reference-data.parallelism:4}") int parallelism,
+      @Value("${common.reference-data.languages:}") String[] languages) {
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    transactionTemplate.setReadOnly(true);
+
+    List<Locale> locales = Stream.of(languages).filter(language -> !language.trim().isEmpty())
+        .map(language -> Locale.forLanguageTag(language.trim())).collect(Collectors.toList());
+
+    return new ReferenceDataLoader(services, cacheManager, cacheResolver, keyGenerator, transactionTemplate,
+        refreshInterval, parallelism, locales);
+  }
+}
@@ -0,0 +1,250 @@
+package vn.siplab.medical.education.common.service;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.i18n.LocaleContext;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import vn.siplab.medical.education.common.cache.EntityCacheKeyGenerator;
+import vn.siplab.medical.education.common.cache.EntityCacheResolver;
+import vn.siplab.medical.education.common.dto.BaseDTO;
+
+// Loads the findAll and findById caches of every ReferenceDataService in parallel before the
+// application is ready (runners finish before readiness turns to ACCEPTING_TRAFFIC), then
+// rebuilds them on a fixed delay. Refreshed values replace the cached ones in place, so readers
+// never see a miss. The health stays OUT_OF_SERVICE until every service has loaded once; add it
+// to the readiness group to hold traffic on it as well.
+public class ReferenceDataLoader implements ApplicationRunner, HealthIndicator, DisposableBean {
+
+  private static final Logger logger = LoggerFactory.getLogger(ReferenceDataLoader.class);
+
+  private static final Method FIND_ALL = ReflectionUtils.findMethod(BaseService.class, "findAll");
+
+  private static final Method FIND_BY_ID = ReflectionUtils.findMethod(BaseService.class, "findById", Long.class);
+
+  private final ObjectProvider<ReferenceDataService<?>> services;
+
+  private final ObjectProvider<CacheManager> cacheManager;
+
+  private final EntityCacheResolver cacheResolver;
+
+  private final EntityCacheKeyGenerator keyGenerator;
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final Duration refreshInterval;
+
+  private final List<Locale> locales;
+
+  private final ExecutorService executor;
+
+  private final ScheduledExecutorService scheduler;
+
+  private final Map<String, Integer> loaded = new ConcurrentHashMap<>();
+
+  private final Map<String, String> failures = new ConcurrentHashMap<>();
+
+  private volatile Set<String> pending;
+
+  private volatile ZonedDateTime lastRefresh;
+
+  public ReferenceDataLoader(ObjectProvider<ReferenceDataService<?>> services, ObjectProvider<CacheManager> cacheManager,
+      EntityCacheResolver cacheResolver, EntityCacheKeyGenerator keyGenerator, TransactionTemplate transactionTemplate,
+      Duration refreshInterval, int parallelism, List<Locale> locales) {
+    this.services = services;
+    this.cacheManager = cacheManager;
+    this.cacheResolver = cacheResolver;
+    this.keyGenerator = keyGenerator;
+    this.transactionTemplate = transactionTemplate;
+    this.refreshInterval = refreshInterval;
+    this.locales = locales.isEmpty() ? Collections.singletonList(null) : locales;
+
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("reference-data-");
+    threadFactory.setDaemon(true);
+    this.executor = Executors.newFixedThreadPool(Math.max(parallelism, 1), threadFactory);
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    List<ReferenceDataService<?>> services = this.services.orderedStream().collect(Collectors.toList());
+
+    Set<String> names = ConcurrentHashMap.newKeySet();
+    services.forEach(service -> names.add(getName(service)));
+    pending = names;
+
+    CompletableFuture.allOf(services.stream()
+        .map(service -> CompletableFuture.runAsync(() -> load(service), executor))
+        .toArray(CompletableFuture[]::new)).join();
+
+    if (!services.isEmpty() && refreshInterval != null && !refreshInterval.isZero() && !refreshInterval.isNegative()) {
+      scheduler.scheduleWithFixedDelay(() -> services.forEach(this::load), refreshInterval.toMillis(),
+          refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void load(ReferenceDataService<?> service) {
+    String name = getName(service);
+    long startTime = System.nanoTime();
+
+    try {
+      loaded.put(name, refresh(service));
+      failures.remove(name);
+      pending.remove(name);
+      lastRefresh = ZonedDateTime.now();
+
+      logger.debug("Loaded reference data of {} in {} ms", name,
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+    } catch (RuntimeException e) {
+      failures.put(name, String.valueOf(e.getMessage()));
+      logger.warn("Cannot load reference data of {}", name, e);
+    }
+  }
+
+  // Reads through the unproxied service so the values are rebuilt rather than read back from
+  // the cache, then puts them under the keys the cached methods use. The list key is taken before
+  // reading: a write committed meanwhile moves the list version, and the values read are dropped.
+  private int refresh(ReferenceDataService<?> service) {
+    Object target = AopProxyUtils.getSingletonTarget(service);
+
+    if (!(target instanceof BaseService) || cacheManager.getIfAvailable() == null) {
+      // Nothing to fill without caching; the first read still warms the mappers
+      return service.findAll().size();
+    }
+
+    Integer size = transactionTemplate.execute(status -> {
+      int count = 0;
+
+      for (int i = 0; i < locales.size(); i++) {
+        Locale locale = locales.get(i);
+        // findById is keyed by id alone, so it is filled once
+        boolean fillFindById = i == locales.size() - 1;
+
+        LocaleContext previous = LocaleContextHolder.getLocaleContext();
+        if (locale != null) {
+          LocaleContextHolder.setLocale(locale);
+        }
+
+        try {
+          count = refresh(target, fillFindById);
+        } finally {
+          LocaleContextHolder.setLocaleContext(previous);
+        }
+      }
+
+      return count;
+    });
+
+    return size == null ? 0 : size;
+  }
+
+  private int refresh(Object target, boolean fillFindById) {
+    Object[] noArgs = new Object[0];
+    Object key = keyGenerator.generate(target, FIND_ALL, noArgs);
+    AtomicInteger size = new AtomicInteger();
+
+    Consumer<List<? extends BaseDTO>> findAll = dtos -> {
+      size.set(dtos.size());
+      // A snapshot service keeps its list off-heap
+      if (!isSnapshotEnabled(target) && isCurrent(target, key)) {
+        put(target, FIND_ALL, noArgs, key, dtos);
+      }
+    };
+    Consumer<List<? extends BaseDTO>> findById = dtos -> {
+      size.set(dtos.size());
+      if (isCurrent(target, key)) {
+        dtos.forEach(dto -> put(target, FIND_BY_ID, new Object[]{dto.getId()}, dto.getId(), dto));
+      }
+    };
+
+    if (target instanceof AbstractBaseService) {
+      // findAll and findById views mapped from one read of the table
+      ((AbstractBaseService<?, ?, ?>) target).findAll(findAll, fillFindById ? findById : null);
+    } else {
+      BaseService<?> uncached = (BaseService<?>) target;
+      List<? extends BaseDTO> dtos = uncached.findAll();
+      findAll.accept(dtos);
+      if (fillFindById) {
+        findById.accept(dtos.stream().map(dto -> uncached.findById(dto.getId())).filter(Objects::nonNull)
+            .collect(Collectors.toList()));
+      }
+    }
+
+    return size.get();
+  }
+
+  private static boolean isSnapshotEnabled(Object target) {
+    return target instanceof AbstractBaseService && ((AbstractBaseService<?, ?, ?>) target).isSnapshotEnabled();
+  }
+
+  private boolean isCurrent(Object target, Object key) {
+    return key.equals(keyGenerator.generate(target, FIND_ALL, new Object[0]));
+  }
+
+  private void put(Object target, Method method, Object[] args, Object key, Object value) {
+    Cache cache = cacheResolver.getCache(target, method, args);
+    if (cache != null && value != null) {
+      cache.put(key, value);
+    }
+  }
+
+  private static String getName(ReferenceDataService<?> service) {
+    return ClassUtils.getUserClass(AopUtils.getTargetClass(service)).getSimpleName();
+  }
+
+  @Override
+  public Health health() {
+    Set<String> pending = this.pending;
+    Health.Builder builder = pending != null && pending.isEmpty() ? Health.up() : Health.outOfService();
+
+    builder.withDetail("loaded", loaded);
+    if (pending != null && !pending.isEmpty()) {
+      builder.withDetail("pending", pending);
+    }
+    if (!failures.isEmpty()) {
+      builder.withDetail("failures", failures);
+    }
+    if (lastRefresh != null) {
+      builder.withDetail("lastRefresh", lastRefresh.toString());
+    }
+
+    return builder.build();
+  }
+
+  @Override
+  public void destroy() {
+    scheduler.shutdownNow();
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,9 @@
+package vn.siplab.medical.education.common.service;
+
+import vn.siplab.medical.education.common.dto.BaseDTO;
+
+// Marks the service of a small, read-heavy reference table: its findAll and findById caches are
+// loaded at startup and refreshed in the background, see ReferenceDataLoader
+public interface ReferenceDataService<DTO extends BaseDTO> extends BaseService<DTO> {
+
+}
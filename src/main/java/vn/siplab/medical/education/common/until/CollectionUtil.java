@@ -0,0 +1,36 @@
+package vn.siplab.medical.education.common.until;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public final class CollectionUtil {
+
+  public static <T> List<List<T>> partition(List<T> list, int size) {
+    if (list == null || list.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    if (size <= 0 || list.size() <= size) {
+      List<List<T>> partitions = new ArrayList<>(1);
+      partitions.add(list);
+      return partitions;
+    }
+
+    int total = list.size();
+    List<List<T>> partitions = new ArrayList<>((total + size - 1) / size);
+    for (int from = 0; from < total; from += size) {
+      partitions.add(list.subList(from, Math.min(from + size, total)));
+    }
+
+    return partitions;
+  }
+
+  public static <T> List<List<T>> partition(Collection<T> collection, int size) {
+    if (collection instanceof List) {
+      return partition((List<T>) collection, size);
+    }
+
+    return partition(collection == null ? null : new ArrayList<>(collection), size);
+  }
+}
@@ -1,6 +1,7 @@
 package vn.siplab.medical.education.common.until;
 
 
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -29,7 +30,12 @@ public class ObjectMapperUtil {
   public static ObjectMapper mapper = getMapper();
 
   public static ObjectMapper getMapper() {
-    return new ObjectMapper() {{
+    return getMapper(new JsonFactory());
+  }
+
+  // Same settings over another data format, e.g. a SmileFactory for binary payloads
+  public static ObjectMapper getMapper(JsonFactory factory) {
+    return new ObjectMapper(factory) {{
       disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
       disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
       enable(DeserializationFeature.ACCEPT_EMPTY_ARRAY_AS_NULL_OBJECT);
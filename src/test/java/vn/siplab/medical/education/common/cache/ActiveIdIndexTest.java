@@ -0,0 +1,64 @@
+package vn.siplab.medical.education.common.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// The footprint of 10M ids is measured from the bitmaps, not estimated, and logged
+class ActiveIdIndexTest {
+
+  private static final Logger logger = LoggerFactory.getLogger(ActiveIdIndexTest.class);
+
+  private static final long IDS = 10000000L;
+
+  // Far below the 500 MB a HashSet<Long> of 10M ids takes
+  private static final long MAXIMUM_BYTES = 32L * 1024 * 1024;
+
+  @Test
+  void sequentialIds() {
+    ActiveIdIndex index = new ActiveIdIndex();
+    index.load(LongStream.rangeClosed(1, IDS).filter(id -> id % 100 != 0).boxed(), true);
+    index.load(LongStream.rangeClosed(1, IDS).filter(id -> id % 100 == 0).boxed(), false);
+
+    long bytes = index.getSizeInBytes();
+    logger.info("{} sequential ids, 1% inactive: {} bytes", IDS, bytes);
+
+    assertTrue(bytes < MAXIMUM_BYTES);
+    assertEquals(Boolean.TRUE, index.get(1));
+    assertEquals(Boolean.FALSE, index.get(100));
+    assertNull(index.get(IDS + 1));
+  }
+
+  @Test
+  void sparseIds() {
+    ActiveIdIndex index = new ActiveIdIndex();
+    index.load(LongStream.range(0, IDS).map(i -> i * 37 + 1).boxed(), true);
+
+    long bytes = index.getSizeInBytes();
+    logger.info("{} ids spread over {} values: {} bytes", IDS, IDS * 37, bytes);
+
+    assertTrue(bytes < MAXIMUM_BYTES);
+    assertEquals(Boolean.TRUE, index.get(38));
+    assertNull(index.get(2));
+  }
+
+  @Test
+  void putMovesAnIdBetweenFlags() {
+    ActiveIdIndex index = new ActiveIdIndex();
+    index.load(LongStream.rangeClosed(1, 10).boxed(), true);
+
+    index.put(5, false);
+    assertEquals(Boolean.FALSE, index.get(5));
+
+    index.put(5, true);
+    assertEquals(Boolean.TRUE, index.get(5));
+
+    index.remove(5);
+    assertNull(index.get(5));
+  }
+}
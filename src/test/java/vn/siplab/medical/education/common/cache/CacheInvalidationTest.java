@@ -0,0 +1,34 @@
+package vn.siplab.medical.education.common.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class CacheInvalidationTest {
+
+  @Test
+  void keyMayHoldTheSeparator() {
+    CacheInvalidation invalidation = CacheInvalidation.fromMessage(
+        new CacheInvalidation("origin", "Sample:list", "SimpleKey [a|b]").toMessage());
+
+    assertEquals("origin", invalidation.getOrigin());
+    assertEquals("Sample:list", invalidation.getCacheName());
+    assertEquals("SimpleKey [a|b]", invalidation.getKey());
+  }
+
+  @Test
+  void clearHasNoKey() {
+    CacheInvalidation invalidation = CacheInvalidation.fromMessage(
+        new CacheInvalidation("origin", "Sample:dto", null).toMessage());
+
+    assertEquals("Sample:dto", invalidation.getCacheName());
+    assertNull(invalidation.getKey());
+  }
+
+  @Test
+  void malformedMessagesAreIgnored() {
+    assertNull(CacheInvalidation.fromMessage(null));
+    assertNull(CacheInvalidation.fromMessage("¬í\u0000\u0005sr"));
+  }
+}
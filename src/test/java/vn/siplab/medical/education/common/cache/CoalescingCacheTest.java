@@ -0,0 +1,167 @@
+package vn.siplab.medical.education.common.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache.ValueRetrievalException;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+class CoalescingCacheTest {
+
+  private static final int THREADS = 8;
+
+  private final ExecutorService callers = Executors.newFixedThreadPool(THREADS);
+
+  private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor();
+
+  @AfterEach
+  void shutdown() {
+    callers.shutdownNow();
+    refreshExecutor.shutdownNow();
+  }
+
+  @Test
+  void concurrentMissesShareOneLoad() throws Exception {
+    CoalescingCache cache = new CoalescingCache(new ConcurrentMapCache("coalesced"), null, refreshExecutor, null);
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+
+    List<Future<Object>> results = call(THREADS, () -> cache.get(1L, () -> {
+      loads.incrementAndGet();
+      release.await();
+      return new Object();
+    }));
+
+    // Give every caller the time to miss and wait on the load
+    Thread.sleep(200);
+    release.countDown();
+
+    Object value = results.get(0).get(5, TimeUnit.SECONDS);
+    for (Future<Object> result : results) {
+      assertSame(value, result.get(5, TimeUnit.SECONDS));
+    }
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void followersShareTheLoadFailure() throws Exception {
+    CoalescingCache cache = new CoalescingCache(new ConcurrentMapCache("failed"), null, refreshExecutor, null);
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    IllegalStateException failure = new IllegalStateException("load failed");
+
+    List<Future<Object>> results = call(THREADS, () -> cache.get(1L, () -> {
+      loads.incrementAndGet();
+      release.await();
+      throw failure;
+    }));
+
+    Thread.sleep(200);
+    release.countDown();
+
+    for (Future<Object> result : results) {
+      try {
+        result.get(5, TimeUnit.SECONDS);
+      } catch (ExecutionException e) {
+        assertTrue(e.getCause() instanceof ValueRetrievalException);
+        assertSame(failure, e.getCause().getCause());
+        continue;
+      }
+
+      throw new AssertionError("Expected the load failure");
+    }
+    assertEquals(1, loads.get());
+    assertNull(cache.get(1L));
+  }
+
+  @Test
+  void refreshReturnsTheCachedValueWhileReloading() throws Exception {
+    CoalescingCache cache = new CoalescingCache(new ConcurrentMapCache("refreshed"), Duration.ofMillis(1),
+        refreshExecutor, null);
+    cache.put(1L, "cached");
+    Thread.sleep(10);
+
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+
+    // Returns at once though the reload is blocked, and later callers do not start another one
+    for (int i = 0; i < THREADS; i++) {
+      assertEquals("cached", cache.get(1L, () -> {
+        loads.incrementAndGet();
+        release.await();
+        return "reloaded";
+      }));
+    }
+
+    release.countDown();
+
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!"reloaded".equals(cache.get(1L).get()) && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+
+    assertEquals("reloaded", cache.get(1L).get());
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void refreshRunsAsTheCallerAndKeepsTheCachedValueOnFailure() throws Exception {
+    CoalescingCache cache = new CoalescingCache(new ConcurrentMapCache("secured"), Duration.ofMillis(1),
+        refreshExecutor, null);
+    cache.put(1L, "cached");
+    Thread.sleep(10);
+
+    Authentication caller = new TestingAuthenticationToken("caller", null);
+    SecurityContextHolder.getContext().setAuthentication(caller);
+    CompletableFuture<Authentication> seen = new CompletableFuture<>();
+
+    try {
+      assertEquals("cached", cache.get(1L, () -> {
+        seen.complete(SecurityContextHolder.getContext().getAuthentication());
+        throw new IllegalStateException("refresh failed");
+      }));
+    } finally {
+      SecurityContextHolder.clearContext();
+    }
+
+    assertSame(caller, seen.get(5, TimeUnit.SECONDS));
+
+    // The failed reload released the key, so the next stale read starts another one
+    CompletableFuture<Object> retried = new CompletableFuture<>();
+    Thread.sleep(10);
+    assertEquals("cached", cache.get(1L, () -> {
+      retried.complete("reloaded");
+      return "reloaded";
+    }));
+    assertEquals("reloaded", retried.get(5, TimeUnit.SECONDS));
+    assertNull(refreshExecutor.submit(() -> SecurityContextHolder.getContext().getAuthentication()).get());
+  }
+
+  private List<Future<Object>> call(int count, Callable<Object> task) {
+    List<Future<Object>> results = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      results.add(callers.submit(task));
+    }
+
+    return results;
+  }
+}
@@ -0,0 +1,108 @@
+package vn.siplab.medical.education.common.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import vn.siplab.medical.education.common.support.SampleDTO;
+
+// Round-trips a DTO page and list through the Smile codec, with and without LZ4, and through plain
+// JDK serialization. Payload sizes and times are logged.
+class DTOCacheSerializerBenchmarkTest {
+
+  private static final Logger logger = LoggerFactory.getLogger(DTOCacheSerializerBenchmarkTest.class);
+
+  private static final int PAGE_SIZE = 100;
+
+  private static final int WARM_UP_ITERATIONS = 2000;
+
+  private static final int ITERATIONS = 5000;
+
+  @Test
+  void pageRoundTrips() {
+    Page<SampleDTO> page = new PageImpl<>(createDTOs(), PageRequest.of(2, PAGE_SIZE,
+        Sort.by(Direction.DESC, "updatedAt").and(Sort.by("name").ignoreCase())), 1234);
+
+    Object copy = new DTOCacheSerializer(getClass().getClassLoader(), 2048)
+        .deserialize(new DTOCacheSerializer(getClass().getClassLoader(), 2048).serialize(page));
+
+    assertTrue(copy instanceof PageImpl);
+    Page<?> pageCopy = (Page<?>) copy;
+    assertEquals(page.getPageable(), pageCopy.getPageable());
+    assertEquals(page.getTotalElements(), pageCopy.getTotalElements());
+    assertEquals(page.getContent(), pageCopy.getContent());
+    assertEquals("sample-0", ((SampleDTO) pageCopy.getContent().get(0)).getName());
+  }
+
+  @Test
+  void smileAgainstJdkSerialization() {
+    List<SampleDTO> dtos = createDTOs();
+    Page<SampleDTO> page = new PageImpl<>(dtos, PageRequest.of(0, PAGE_SIZE, Sort.by("id")), 1000);
+    ClassLoader classLoader = getClass().getClassLoader();
+
+    measure("page", page, new JdkSerializationRedisSerializer(classLoader), new DTOCacheSerializer(classLoader, -1),
+        new DTOCacheSerializer(classLoader, 2048));
+    measure("list", dtos, new JdkSerializationRedisSerializer(classLoader), new DTOCacheSerializer(classLoader, -1),
+        new DTOCacheSerializer(classLoader, 2048));
+    measure("dto", dtos.get(0), new JdkSerializationRedisSerializer(classLoader),
+        new DTOCacheSerializer(classLoader, -1), new DTOCacheSerializer(classLoader, 2048));
+  }
+
+  private static void measure(String name, Object value, RedisSerializer<Object> jdk, RedisSerializer<Object> smile,
+      RedisSerializer<Object> smileLz4) {
+    logger.info("{}: jdk {}, smile {}, smile+lz4 {}", name, measure(jdk, value), measure(smile, value),
+        measure(smileLz4, value));
+  }
+
+  private static String measure(RedisSerializer<Object> serializer, Object value) {
+    byte[] bytes = serializer.serialize(value);
+
+    for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+      serializer.deserialize(serializer.serialize(value));
+    }
+
+    long startTime = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      serializer.serialize(value);
+    }
+    long serializeNanos = (System.nanoTime() - startTime) / ITERATIONS;
+
+    startTime = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      serializer.deserialize(bytes);
+    }
+    long deserializeNanos = (System.nanoTime() - startTime) / ITERATIONS;
+
+    return bytes.length + " bytes, write " + TimeUnit.NANOSECONDS.toMicros(serializeNanos) + " us, read "
+        + TimeUnit.NANOSECONDS.toMicros(deserializeNanos) + " us";
+  }
+
+  private static List<SampleDTO> createDTOs() {
+    ZonedDateTime now = ZonedDateTime.now();
+    List<SampleDTO> dtos = new ArrayList<>(PAGE_SIZE);
+
+    for (int i = 0; i < PAGE_SIZE; i++) {
+      SampleDTO dto = new SampleDTO((long) i + 1, "sample-" + i);
+      dto.setCreatedAt(now);
+      dto.setUpdatedAt(now);
+      dto.setCreatedBy(1L);
+      dto.setUpdatedBy(1L);
+      dtos.add(dto);
+    }
+
+    return dtos;
+  }
+}
@@ -0,0 +1,145 @@
+package vn.siplab.medical.education.common.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.Cache.ValueWrapper;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+// Two nodes, each with its own connection, cache manager and listener, sharing one Redis: a
+// change on one node has to drop the other node's L1 copy
+@Testcontainers(disabledWithoutDocker = true)
+class TwoLevelCacheManagerTest {
+
+  private static final String CACHE_NAME = "Sample:dto";
+
+  private static final long TIMEOUT_MILLIS = 5000;
+
+  @Container
+  private static final GenericContainer<?> redis = new GenericContainer<>("redis:6-alpine").withExposedPorts(6379);
+
+  private Node first;
+
+  private Node second;
+
+  @BeforeEach
+  void startNodes() {
+    first = new Node();
+    second = new Node();
+  }
+
+  @AfterEach
+  void stopNodes() {
+    first.getCache().clear();
+    first.stop();
+    second.stop();
+  }
+
+  @Test
+  void putOnOneNodeDropsThePeerLocalCopy() {
+    first.getCache().put(1L, "first");
+    assertEquals("first", get(second, 1L));
+
+    // The second node now serves the key from its L1
+    first.getCache().put(1L, "second");
+
+    await(() -> get(second, 1L), "second");
+  }
+
+  @Test
+  void evictOnOneNodeDropsThePeerLocalCopy() {
+    first.getCache().put(2L, "value");
+    assertEquals("value", get(second, 2L));
+
+    first.getCache().evict(2L);
+
+    await(() -> get(second, 2L), null);
+  }
+
+  @Test
+  void clearOnOneNodeDropsThePeerLocalCopies() {
+    first.getCache().put(3L, "value");
+    assertEquals("value", get(second, 3L));
+
+    first.getCache().clear();
+
+    await(() -> get(second, 3L), null);
+  }
+
+  private static Object get(Node node, Object key) {
+    ValueWrapper value = node.getCache().get(key);
+    return value == null ? null : value.get();
+  }
+
+  private static void await(Supplier<Object> actual, Object expected) {
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    while (System.currentTimeMillis() < deadline) {
+      Object value = actual.get();
+      if (expected == null ? value == null : expected.equals(value)) {
+        return;
+      }
+
+      try {
+        Thread.sleep(20);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+
+    if (expected == null) {
+      assertNull(actual.get());
+    } else {
+      assertEquals(expected, actual.get());
+    }
+  }
+
+  // Wired as TwoLevelCacheConfiguration wires one application
+  private static class Node {
+
+    private final LettuceConnectionFactory connectionFactory;
+
+    private final TwoLevelCacheManager cacheManager;
+
+    private final RedisMessageListenerContainer listenerContainer;
+
+    Node() {
+      connectionFactory = new LettuceConnectionFactory(
+          new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(6379)));
+      connectionFactory.afterPropertiesSet();
+
+      TwoLevelCacheProperties properties = new TwoLevelCacheProperties();
+      properties.setEnabled(true);
+
+      TwoLevelCacheConfiguration configuration = new TwoLevelCacheConfiguration();
+      RedisTemplate<String, String> template = configuration.cacheInvalidationTemplate(connectionFactory);
+      template.afterPropertiesSet();
+
+      cacheManager = configuration.cacheManager(connectionFactory, properties, template);
+      listenerContainer = configuration.cacheInvalidationListenerContainer(connectionFactory, properties,
+          cacheManager);
+      listenerContainer.afterPropertiesSet();
+      listenerContainer.start();
+    }
+
+    Cache getCache() {
+      return cacheManager.getCache(CACHE_NAME);
+    }
+
+    void stop() {
+      listenerContainer.stop();
+      connectionFactory.destroy();
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package vn.siplab.medical.education.common.dao.repositoty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import vn.siplab.medical.education.common.support.JpaTestConfiguration;
+import vn.siplab.medical.education.common.support.Sample;
+import vn.siplab.medical.education.common.support.SampleDTO;
+import vn.siplab.medical.education.common.support.SampleRepository;
+
+// search with PageRequest.of(0, 1) against searchFirst on an in-memory H2 table: the same row,
+// one statement instead of a select plus a count. Times are logged for comparison between runs.
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(JpaTestConfiguration.class)
+class SearchFirstBenchmarkTest {
+
+  private static final Logger logger = LoggerFactory.getLogger(SearchFirstBenchmarkTest.class);
+
+  private static final int ROWS = 20000;
+
+  private static final int WARM_UP_ITERATIONS = 200;
+
+  private static final int ITERATIONS = 1000;
+
+  @Autowired
+  private SampleRepository repository;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @BeforeEach
+  void insertRows() {
+    ZonedDateTime now = ZonedDateTime.now();
+    List<Sample> samples = new ArrayList<>(ROWS);
+
+    for (int i = 0; i < ROWS; i++) {
+      Sample sample = new Sample();
+      sample.setName("sample-" + i);
+      sample.setAuditProperties(0L, now, 0L, now);
+      samples.add(sample);
+    }
+
+    repository.saveAll(samples);
+    repository.flush();
+    repository.clear();
+  }
+
+  @Test
+  void searchFirstSkipsTheCountQuery() {
+    SampleDTO dto = new SampleDTO();
+    Pageable first = PageRequest.of(0, 1, Sort.by(Direction.DESC, "id"));
+
+    for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+      repository.search(dto, first);
+      repository.searchFirst(dto, first);
+    }
+
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+    statistics.clear();
+    long searchNanos = time(() -> repository.search(dto, first).getContent());
+    long searchStatements = statistics.getPrepareStatementCount();
+
+    statistics.clear();
+    long searchFirstNanos = time(() -> repository.searchFirst(dto, first));
+    long searchFirstStatements = statistics.getPrepareStatementCount();
+
+    logger.info("{} rows, {} calls: search {} us/call ({} statements), searchFirst {} us/call ({} statements)",
+        ROWS, ITERATIONS, TimeUnit.NANOSECONDS.toMicros(searchNanos), searchStatements,
+        TimeUnit.NANOSECONDS.toMicros(searchFirstNanos), searchFirstStatements);
+
+    assertEquals(2L * ITERATIONS, searchStatements);
+    assertEquals(ITERATIONS, searchFirstStatements);
+    assertEquals(repository.search(dto, first).getContent(), repository.searchFirst(dto, first));
+  }
+
+  // Average nanoseconds per call
+  private static long time(Supplier<?> call) {
+    long startTime = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      call.get();
+    }
+
+    return (System.nanoTime() - startTime) / ITERATIONS;
+  }
+}
@@ -0,0 +1,25 @@
+package vn.siplab.medical.education.common.support;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import vn.siplab.medical.education.common.dao.repositoty.BaseRepositoryImpl;
+
+// Repositories on BaseRepositoryImpl, as the applications using this library declare them, and the
+// "f" bean the BaseRepository queries call
+@TestConfiguration
+@EnableJpaRepositories(basePackageClasses = SampleRepository.class, repositoryBaseClass = BaseRepositoryImpl.class)
+public class JpaTestConfiguration {
+
+  @Bean("f")
+  public QueryFunctions queryFunctions() {
+    return new QueryFunctions();
+  }
+
+  public static class QueryFunctions {
+
+    public boolean isNull(Object value) {
+      return value == null;
+    }
+  }
+}
@@ -0,0 +1,27 @@
+package vn.siplab.medical.education.common.support;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import vn.siplab.medical.education.common.dao.model.BaseEntity;
+
+@Entity
+@Table(name = "sample")
+@Getter
+@Setter
+@NoArgsConstructor
+public class Sample extends BaseEntity {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "name")
+  private String name;
+}
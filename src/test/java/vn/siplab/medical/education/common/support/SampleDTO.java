@@ -0,0 +1,19 @@
+package vn.siplab.medical.education.common.support;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import vn.siplab.medical.education.common.dto.BaseDTO;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class SampleDTO extends BaseDTO {
+
+  private String name;
+
+  public SampleDTO(Long id, String name) {
+    super(id, true);
+    this.name = name;
+  }
+}
@@ -0,0 +1,7 @@
+package vn.siplab.medical.education.common.support;
+
+import vn.siplab.medical.education.common.dao.repositoty.BaseRepository;
+
+public interface SampleRepository extends BaseRepository<Sample, SampleDTO, Long> {
+
+}